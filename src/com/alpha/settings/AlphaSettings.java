@@ -18,25 +18,54 @@ package com.alpha.settings;
 
 import android.content.ContentResolver;
 import android.content.Context;
+import android.database.ContentObserver;
 import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.os.UserHandle;
 import android.provider.Settings;
+import android.util.ArrayMap;
+import android.util.SparseArray;
+import android.view.MotionEvent;
+import android.view.View;
 
 import androidx.preference.Preference;
+import androidx.preference.PreferenceGroupAdapter;
 import androidx.preference.PreferenceScreen;
 import androidx.preference.PreferenceFragment;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.internal.logging.nano.MetricsProto;
 
+import com.alpha.settings.utils.AlphaSettingsSnapshot;
+import com.alpha.settings.utils.StartupStats;
+import com.alpha.settings.utils.StartupTracer;
+
 import com.android.settings.R;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.search.BaseSearchIndexProvider;
 
 import com.android.settingslib.search.SearchIndexable;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SearchIndexable(forTarget = SearchIndexable.ALL & ~SearchIndexable.ARC)
 public class AlphaSettings extends DashboardFragment {
     private static final String TAG = "AlphaSettings";
+    private static final int DEFAULT_DASHBOARD_STYLE = 2;
+
+    private final SparseArray<ArrayMap<String, Integer>> mDashboardLayouts = new SparseArray<>();
+    private ArrayMap<String, Integer> mStockLayouts;
+    // Until the stored style is read off the main thread, tiles use the default one
+    private int mDashBoardStyle = DEFAULT_DASHBOARD_STYLE;
+    // Style reads may finish out of order, only the latest started one is applied
+    private final AtomicInteger mStyleReadSeq = new AtomicInteger();
+    private int mAppliedStyleSeq;
+    private StartupTracer mStartupTracer;
+    private SubScreenPrefetcher mPrefetcher;
 
     @Override
     public int getMetricsCategory() {
@@ -55,46 +84,173 @@ public class AlphaSettings extends DashboardFragment {
 
     @Override
     public void onCreate(Bundle icicle) {
+        mStartupTracer = StartupTracer.begin(this, getSettingsLifecycle());
         super.onCreate(icicle);
+        mStartupTracer.onInflated();
+        mPrefetcher = new SubScreenPrefetcher(getContext());
         setAlphaDashboardStyle();
+        final Context context = getContext().getApplicationContext();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final int seq = mStyleReadSeq.incrementAndGet();
+            // Also warms the values read by the sub-screens while the dashboard is showing
+            final AlphaSettingsSnapshot snapshot = AlphaSettingsSnapshot.get(context);
+            snapshot.ensureLoaded();
+            postDashboardStyle(seq, snapshot.getSystemInt(
+                    Settings.System.SETTINGS_DASHBOARD_STYLE, DEFAULT_DASHBOARD_STYLE));
+        });
+        getContext().getContentResolver().registerContentObserver(
+                Settings.System.getUriFor(Settings.System.SETTINGS_DASHBOARD_STYLE),
+                false, mDashboardStyleObserver, UserHandle.USER_ALL);
+    }
+
+    @Override
+    public void onViewCreated(View view, Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        getListView().addOnItemTouchListener(new RecyclerView.SimpleOnItemTouchListener() {
+            @Override
+            public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
+                if (e.getActionMasked() == MotionEvent.ACTION_DOWN) {
+                    prefetchTileAt(rv, e.getX(), e.getY());
+                }
+                return false;
+            }
+        });
     }
 
+    @Override
     public void onResume() {
         super.onResume();
-        //setAlphaDashboardStyle();
+        Looper.myQueue().addIdleHandler(mIdlePrefetch);
     }
 
-    private void setAlphaDashboardStyle() {
-        int mDashBoardStyle = geSettingstDashboardStyle();
+    @Override
+    public void onPause() {
+        super.onPause();
+        Looper.myQueue().removeIdleHandler(mIdlePrefetch);
+        mPrefetcher.cancel();
+    }
+
+    private final MessageQueue.IdleHandler mIdlePrefetch = () -> {
         final PreferenceScreen mScreen = getPreferenceScreen();
-        final int mCount = mScreen.getPreferenceCount();
-        for (int i = 0; i < mCount; i++) {
-            final Preference mPreference = mScreen.getPreference(i);
+        for (int i = 0; i < mScreen.getPreferenceCount(); i++) {
+            mPrefetcher.prefetch(mScreen.getPreference(i).getFragment());
+        }
+        return false;
+    };
+
+    private void prefetchTileAt(RecyclerView rv, float x, float y) {
+        final View mChild = rv.findChildViewUnder(x, y);
+        if (mChild == null || !(rv.getAdapter() instanceof PreferenceGroupAdapter)) {
+            return;
+        }
+        final int mPosition = rv.getChildAdapterPosition(mChild);
+        if (mPosition != RecyclerView.NO_POSITION) {
+            final Preference mPreference =
+                    ((PreferenceGroupAdapter) rv.getAdapter()).getItem(mPosition);
+            if (mPreference != null) {
+                mPrefetcher.prefetch(mPreference.getFragment());
+            }
+        }
+    }
+
+    @Override
+    public void onDestroy() {
+        getContext().getContentResolver().unregisterContentObserver(mDashboardStyleObserver);
+        super.onDestroy();
+    }
 
-            String mKey = mPreference.getKey();
+    // No handler, so onChange runs on a binder thread and only the restyle goes to main
+    private final ContentObserver mDashboardStyleObserver = new ContentObserver(null) {
+        @Override
+        public void onChange(boolean selfChange) {
+            final Context context = getContext();
+            if (context == null) {
+                return;
+            }
+            final int seq = mStyleReadSeq.incrementAndGet();
+            postDashboardStyle(seq, Settings.System.getIntForUser(context.getContentResolver(),
+                    Settings.System.SETTINGS_DASHBOARD_STYLE, DEFAULT_DASHBOARD_STYLE,
+                    UserHandle.USER_CURRENT));
+        }
+    };
 
-            if (mKey == null) continue;
+    private void postDashboardStyle(int seq, int style) {
+        ThreadUtils.postOnMainThread(() -> {
+            if (!isAdded() || seq < mAppliedStyleSeq) {
+                return;
+            }
+            mAppliedStyleSeq = seq;
+            if (style != mDashBoardStyle) {
+                mDashBoardStyle = style;
+                setAlphaDashboardStyle();
+            }
+        });
+    }
 
-            if (mKey.equals("alphabet_header")) {
-                mPreference.setLayoutResource(R.layout.settings_alphabet_header);
-                continue;
+    private void setAlphaDashboardStyle() {
+        final PreferenceScreen mScreen = getPreferenceScreen();
+        final ArrayMap<String, Integer> mLayouts = getDashboardLayouts(mDashBoardStyle);
+        boolean mChanged = false;
+        for (int i = 0; i < mLayouts.size(); i++) {
+            final Preference mPreference = mScreen.findPreference(mLayouts.keyAt(i));
+            final int mLayout = mLayouts.valueAt(i);
+            if (mPreference != null && mPreference.getLayoutResource() != mLayout) {
+                mPreference.setLayoutResource(mLayout);
+                mChanged = true;
             }
+        }
+        // Rebind already created tiles, view types follow the layout resource
+        if (mChanged && getListView() != null && getListView().getAdapter() != null) {
+            getListView().getAdapter().notifyDataSetChanged();
+        }
+    }
 
-            if (mDashBoardStyle > 0) { // 0 = stock aosp style
-                if (mDashBoardStyle == 1 && mKey.equals("statusbar_settings_category")) {
-                    mPreference.setLayoutResource(R.layout.dot_dashboard_preference_full_accent_icon);
-                } else if (mDashBoardStyle == 2 && mKey.equals("statusbar_settings_category")) {
-                    mPreference.setLayoutResource(R.layout.dot_dashboard_preference_full_accent_2_icon);
-                } else {
-                    mPreference.setLayoutResource(R.layout.dot_dashboard_preference_full_icon);
+    /**
+     * Returns the key -> layout map for a dashboard style, built once per style. Style 0
+     * maps back to the layouts the tiles were inflated with.
+     */
+    private ArrayMap<String, Integer> getDashboardLayouts(int style) {
+        ArrayMap<String, Integer> mLayouts = mDashboardLayouts.get(style);
+        if (mLayouts != null) {
+            return mLayouts;
+        }
+        final PreferenceScreen mScreen = getPreferenceScreen();
+        if (mStockLayouts == null) {
+            mStockLayouts = new ArrayMap<>();
+            for (int i = 0; i < mScreen.getPreferenceCount(); i++) {
+                final Preference mPreference = mScreen.getPreference(i);
+                if (mPreference.getKey() != null) {
+                    mStockLayouts.put(mPreference.getKey(), mPreference.getLayoutResource());
                 }
             }
         }
+
+        mLayouts = new ArrayMap<>(mStockLayouts.size());
+        for (int i = 0; i < mStockLayouts.size(); i++) {
+            final String mKey = mStockLayouts.keyAt(i);
+            final int mLayout;
+            if (mKey.equals("alphabet_header")) {
+                mLayout = R.layout.settings_alphabet_header;
+            } else if (style <= 0) { // 0 = stock aosp style
+                mLayout = mStockLayouts.valueAt(i);
+            } else if (style == 1 && mKey.equals("statusbar_settings_category")) {
+                mLayout = R.layout.dot_dashboard_preference_full_accent_icon;
+            } else if (style == 2 && mKey.equals("statusbar_settings_category")) {
+                mLayout = R.layout.dot_dashboard_preference_full_accent_2_icon;
+            } else {
+                mLayout = R.layout.dot_dashboard_preference_full_icon;
+            }
+            mLayouts.put(mKey, mLayout);
+        }
+        mDashboardLayouts.put(style, mLayouts);
+        return mLayouts;
     }
 
-    private int geSettingstDashboardStyle() {
-        return Settings.System.getIntForUser(getContext().getContentResolver(),
-                Settings.System.SETTINGS_DASHBOARD_STYLE, 2, UserHandle.USER_CURRENT);
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        // The sub-screens only print their own records, the dashboard prints them all
+        StartupStats.dump(prefix, writer, null);
     }
 
     @Override
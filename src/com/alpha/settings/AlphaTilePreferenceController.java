@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alpha.settings;
+
+import android.content.Context;
+import android.content.res.XmlResourceParser;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.util.SparseIntArray;
+
+import com.alpha.settings.fragments.LockScreenSettings;
+import com.alpha.settings.fragments.MiscSettings;
+import com.alpha.settings.fragments.NotificationSettings;
+import com.alpha.settings.fragments.QuickSettings;
+import com.alpha.settings.fragments.StatusBarSettings;
+import com.alpha.settings.utils.DeviceCapabilities;
+
+import com.android.settings.R;
+import com.android.settings.core.BasePreferenceController;
+import com.android.settings.search.BaseSearchIndexProvider;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Hides an Alpha dashboard tile whose screen has nothing to show.
+ *
+ * Declared with settings:controller on the tiles in alpha_settings.xml, so DashboardFragment
+ * hides unavailable tiles and search leaves them out of the index. A screen counts the
+ * preference elements in its xml, minus the keys its search provider drops for this device's
+ * capabilities. The target fragment is never inflated, and counts are cached until the
+ * capabilities change.
+ */
+public class AlphaTilePreferenceController extends BasePreferenceController {
+
+    private static final String TAG = "AlphaTilePrefController";
+    private static final String ANDROID_NS = "http://schemas.android.com/apk/res/android";
+
+    private static final class TileScreen {
+        final int xmlResId;
+        final BaseSearchIndexProvider provider;
+
+        TileScreen(int xmlResId, BaseSearchIndexProvider provider) {
+            this.xmlResId = xmlResId;
+            this.provider = provider;
+        }
+    }
+
+    private static final ArrayMap<String, TileScreen> sScreens = new ArrayMap<>();
+
+    static {
+        sScreens.put("statusbar_settings_category",
+                new TileScreen(R.xml.sb_settings, StatusBarSettings.SEARCH_INDEX_DATA_PROVIDER));
+        sScreens.put("quick_settings_category",
+                new TileScreen(R.xml.qs_settings, QuickSettings.SEARCH_INDEX_DATA_PROVIDER));
+        sScreens.put("lockscreen_settings_category",
+                new TileScreen(R.xml.ls_settings, LockScreenSettings.SEARCH_INDEX_DATA_PROVIDER));
+        sScreens.put("notification_settings_category",
+                new TileScreen(R.xml.notif_settings,
+                        NotificationSettings.SEARCH_INDEX_DATA_PROVIDER));
+        sScreens.put("misc_settings_category",
+                new TileScreen(R.xml.misc_settings, MiscSettings.SEARCH_INDEX_DATA_PROVIDER));
+    }
+
+    // Visible preference count per screen xml, guarded by the class
+    private static final SparseIntArray sCounts = new SparseIntArray();
+    private static boolean sListening;
+
+    public AlphaTilePreferenceController(Context context, String preferenceKey) {
+        super(context, preferenceKey);
+    }
+
+    @Override
+    public int getAvailabilityStatus() {
+        final TileScreen screen = sScreens.get(getPreferenceKey());
+        if (screen == null) {
+            return AVAILABLE;
+        }
+        return getVisibleCount(mContext, screen) > 0 ? AVAILABLE : CONDITIONALLY_UNAVAILABLE;
+    }
+
+    private static synchronized int getVisibleCount(Context context, TileScreen screen) {
+        if (!sListening) {
+            DeviceCapabilities.get(context).addCallback(capabilities -> {
+                synchronized (AlphaTilePreferenceController.class) {
+                    sCounts.clear();
+                }
+            });
+            sListening = true;
+        }
+        int count = sCounts.get(screen.xmlResId, -1);
+        if (count < 0) {
+            count = countVisible(context, screen);
+            sCounts.put(screen.xmlResId, count);
+        }
+        return count;
+    }
+
+    private static int countVisible(Context context, TileScreen screen) {
+        final List<String> hidden = screen.provider.getNonIndexableKeys(context);
+        int count = 0;
+        try (XmlResourceParser parser = context.getResources().getXml(screen.xmlResId)) {
+            int type;
+            while ((type = parser.next()) != XmlPullParser.END_DOCUMENT) {
+                // Depth 1 is the screen itself. Categories only group other preferences, and
+                // children such as <intent> and <extra> aren't preferences at all.
+                if (type != XmlPullParser.START_TAG || parser.getDepth() < 2
+                        || !parser.getName().endsWith("Preference")) {
+                    continue;
+                }
+                final String key = parser.getAttributeValue(ANDROID_NS, "key");
+                if (key == null || !hidden.contains(key)) {
+                    count++;
+                }
+            }
+        } catch (XmlPullParserException | IOException e) {
+            Log.w(TAG, "Unable to count preferences, keeping the tile", e);
+            return 1;
+        }
+        return count;
+    }
+}
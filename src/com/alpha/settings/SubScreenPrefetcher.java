@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alpha.settings;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.telephony.SubscriptionManager;
+import android.util.ArrayMap;
+
+import com.alpha.settings.fragments.QuickSettings;
+import com.alpha.settings.fragments.StatusBarSettings;
+import com.alpha.settings.fragments.statusbar.Clock;
+import com.alpha.settings.fragments.statusbar.NetworkTrafficSettings;
+import com.alpha.settings.utils.AlphaSettingsSnapshot;
+
+import com.android.settings.custom.utils.TelephonyUtils;
+
+/**
+ * Warms what an Alpha sub-screen reads on open before the user gets there.
+ *
+ * The dashboard asks for a tile's fragment when it goes idle and again on touch-down over the
+ * tile. Work runs on one background priority thread, at most once per fragment per
+ * {@link #MIN_INTERVAL_MS}, and whatever is still queued is dropped by {@link #cancel()}.
+ * The warmed data lives in the screens' own bounded caches, nothing is held here.
+ */
+class SubScreenPrefetcher {
+
+    private static final long MIN_INTERVAL_MS = 30 * 1000;
+
+    private static HandlerThread sThread;
+
+    private final Context mContext;
+    private final Handler mHandler;
+    private final ArrayMap<String, Long> mLastPrefetch = new ArrayMap<>();
+
+    SubScreenPrefetcher(Context context) {
+        mContext = context.getApplicationContext();
+        mHandler = new Handler(getThread().getLooper());
+    }
+
+    private static synchronized HandlerThread getThread() {
+        if (sThread == null) {
+            sThread = new HandlerThread("AlphaPrefetch", Process.THREAD_PRIORITY_BACKGROUND);
+            sThread.start();
+        }
+        return sThread;
+    }
+
+    /**
+     * Queues the prefetch for {@code fragment}, a class name as found in the tile's
+     * android:fragment attribute. Unknown or recently warmed fragments are ignored.
+     */
+    void prefetch(String fragment) {
+        final Runnable task = getTask(fragment);
+        if (task == null) {
+            return;
+        }
+        final long now = SystemClock.uptimeMillis();
+        final Long last = mLastPrefetch.get(fragment);
+        if (last != null && now - last < MIN_INTERVAL_MS) {
+            return;
+        }
+        mLastPrefetch.put(fragment, now);
+        mHandler.post(task);
+    }
+
+    void cancel() {
+        mHandler.removeCallbacksAndMessages(null);
+    }
+
+    private Runnable getTask(String fragment) {
+        if (StatusBarSettings.class.getName().equals(fragment)) {
+            return () -> {
+                StatusBarSettings.prefetch(mContext);
+                prefetchCarrierState();
+                // Its most likely next stop
+                Clock.prefetch(mContext);
+            };
+        } else if (QuickSettings.class.getName().equals(fragment)) {
+            return this::prefetchSnapshot;
+        } else if (Clock.class.getName().equals(fragment)) {
+            return () -> Clock.prefetch(mContext);
+        } else if (NetworkTrafficSettings.class.getName().equals(fragment)) {
+            return this::prefetchSnapshot;
+        }
+        return null;
+    }
+
+    private void prefetchSnapshot() {
+        AlphaSettingsSnapshot.get(mContext).ensureLoaded();
+    }
+
+    private void prefetchCarrierState() {
+        final int subId = SubscriptionManager.getDefaultDataSubscriptionId();
+        if (SubscriptionManager.isValidSubscriptionId(subId)) {
+            TelephonyUtils.prefetchCarrierState(mContext, subId);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.fragments;
+
+import android.os.Bundle;
+
+import com.alpha.settings.utils.StartupStats;
+import com.alpha.settings.utils.StartupTracer;
+
+import com.android.settings.SettingsPreferenceFragment;
+
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+
+/**
+ * Base of the Alpha sub-screens. Traces each open with a {@link StartupTracer} and adds the
+ * screen's own {@link StartupStats} records to its dumpsys output.
+ */
+public abstract class AlphaPreferenceFragment extends SettingsPreferenceFragment {
+
+    private StartupTracer mStartupTracer;
+
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        mStartupTracer = StartupTracer.begin(this, getSettingsLifecycle());
+        super.onCreate(savedInstanceState);
+    }
+
+    @Override
+    public void addPreferencesFromResource(int preferencesResId) {
+        super.addPreferencesFromResource(preferencesResId);
+        if (mStartupTracer != null) {
+            mStartupTracer.onInflated();
+        }
+    }
+
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        StartupStats.dump(prefix, writer, getClass().getSimpleName());
+    }
+}
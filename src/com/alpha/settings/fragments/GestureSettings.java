@@ -27,13 +27,12 @@ import androidx.preference.PreferenceFragment;
 import com.android.internal.logging.nano.MetricsProto.MetricsEvent;
 
 import com.android.settings.R;
-import com.android.settings.SettingsPreferenceFragment;
 import com.android.settings.search.BaseSearchIndexProvider;
 
 import com.android.settingslib.search.SearchIndexable;
 
 @SearchIndexable(forTarget = SearchIndexable.ALL & ~SearchIndexable.ARC)
-public class GestureSettings extends SettingsPreferenceFragment implements
+public class GestureSettings extends AlphaPreferenceFragment implements
         Preference.OnPreferenceChangeListener{
 
     @Override
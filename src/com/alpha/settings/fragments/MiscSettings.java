@@ -27,13 +27,12 @@ import androidx.preference.PreferenceFragment;
 import com.android.internal.logging.nano.MetricsProto;
 
 import com.android.settings.R;
-import com.android.settings.SettingsPreferenceFragment;
 import com.android.settings.search.BaseSearchIndexProvider;
 
 import com.android.settingslib.search.SearchIndexable;
 
 @SearchIndexable(forTarget = SearchIndexable.ALL & ~SearchIndexable.ARC)
-public class MiscSettings extends SettingsPreferenceFragment implements
+public class MiscSettings extends AlphaPreferenceFragment implements
         Preference.OnPreferenceChangeListener{
 
     @Override
@@ -56,6 +55,6 @@ public class MiscSettings extends SettingsPreferenceFragment implements
     }
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider(R.xml.alpha_settings);
+            new BaseSearchIndexProvider(R.xml.misc_settings);
 
 }
@@ -28,17 +28,21 @@ import androidx.preference.Preference.OnPreferenceChangeListener;
 import androidx.preference.PreferenceFragment;
 import androidx.preference.SwitchPreference;
 
+import com.alpha.settings.utils.AlphaSettingsSnapshot;
+import com.alpha.settings.utils.DeviceCapabilities;
+
 import com.android.internal.logging.nano.MetricsProto.MetricsEvent;
 
 import com.android.settings.R;
-import com.android.settings.SettingsPreferenceFragment;
 import com.android.settings.custom.preference.SystemSettingListPreference;
 import com.android.settings.search.BaseSearchIndexProvider;
 
 import com.android.settingslib.search.SearchIndexable;
 
+import java.util.List;
+
 @SearchIndexable(forTarget = SearchIndexable.ALL & ~SearchIndexable.ARC)
-public class QuickSettings extends SettingsPreferenceFragment implements
+public class QuickSettings extends AlphaPreferenceFragment implements
         Preference.OnPreferenceChangeListener{
 
     private static final String QS_CATEGORY_BRIGHTNESS = "qs_brightness_category";
@@ -60,25 +64,20 @@ public class QuickSettings extends SettingsPreferenceFragment implements
 
         mQsBrightnessCategory = getPreferenceScreen().findPreference(QS_CATEGORY_BRIGHTNESS);
         mQsShowAutoBrightness = mQsBrightnessCategory.findPreference(QS_SHOW_AUTO_BRIGHTNESS);
-        if (!getResources().getBoolean(
-                com.android.internal.R.bool.config_automatic_brightness_available)){
+        final DeviceCapabilities capabilities = DeviceCapabilities.get(getActivity());
+        if (!capabilities.isAutoBrightnessAvailable()){
             mQsBrightnessCategory.removePreference(mQsShowAutoBrightness);
         }
 
         mQuickPulldown = findPreference(QS_QUICK_PULLDOWN);
         mQuickPulldown.setOnPreferenceChangeListener(this);
-        updateQuickPulldownSummary(mQuickPulldown.getIntValue(0));
-    }
-
-    @Override
-    public void onResume() {
-        super.onResume();
-
         // Adjust preferences for RTL
         if (getResources().getConfiguration().getLayoutDirection() == View.LAYOUT_DIRECTION_RTL) {
             mQuickPulldown.setEntries(R.array.status_bar_quick_qs_pulldown_entries_rtl);
             mQuickPulldown.setEntryValues(R.array.status_bar_quick_qs_pulldown_values_rtl);
         }
+        updateQuickPulldownSummary(AlphaSettingsSnapshot.get(getActivity())
+                .getSystemInt(QS_QUICK_PULLDOWN, 0));
     }
 
     @Override
@@ -125,6 +124,16 @@ public class QuickSettings extends SettingsPreferenceFragment implements
     }
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider(R.xml.qs_settings);
+            new BaseSearchIndexProvider(R.xml.qs_settings) {
+                @Override
+                public List<String> getNonIndexableKeys(Context context) {
+                    final List<String> keys = super.getNonIndexableKeys(context);
+                    // Same gate as onCreate, answered from the cached capabilities
+                    if (!DeviceCapabilities.get(context).isAutoBrightnessAvailable()) {
+                        keys.add(QS_SHOW_AUTO_BRIGHTNESS);
+                    }
+                    return keys;
+                }
+            };
 
 }
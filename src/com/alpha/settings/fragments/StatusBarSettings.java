@@ -26,7 +26,6 @@ import android.content.Context;
 import android.os.Bundle;
 import android.provider.Settings;
 import android.text.format.DateFormat;
-import android.text.TextUtils;
 import android.util.ArraySet;
 import android.view.View;
 
@@ -36,27 +35,30 @@ import androidx.preference.PreferenceScreen;
 import androidx.preference.ListPreference;
 import androidx.preference.SwitchPreference;
 
+import com.alpha.settings.utils.AlphaSettingsSnapshot;
+import com.alpha.settings.utils.DeviceCapabilities;
+import com.alpha.settings.utils.IconBlacklistIndex;
+import com.alpha.settings.utils.SettingsChangeTracker;
+
 import com.android.internal.logging.nano.MetricsProto.MetricsEvent;
-import com.android.internal.util.custom.cutout.CutoutUtils;
 import com.android.settings.R;
-import com.android.settings.SettingsPreferenceFragment;
 import com.android.settings.custom.preference.SystemSettingListPreference;
-import com.android.settings.custom.utils.TelephonyUtils;
 import com.android.settings.search.BaseSearchIndexProvider;
 
 import com.android.settingslib.search.SearchIndexable;
 
+import java.util.List;
 import java.util.Set;
 
 
 @SearchIndexable(forTarget = SearchIndexable.ALL & ~SearchIndexable.ARC)
-public class StatusBarSettings extends SettingsPreferenceFragment
+public class StatusBarSettings extends AlphaPreferenceFragment
         implements Preference.OnPreferenceChangeListener {
 
     private static final String CATEGORY_BATTERY = "status_bar_battery_key";
     private static final String CATEGORY_CLOCK = "status_bar_clock_key";
 
-    private static final String ICON_BLACKLIST = "icon_blacklist";
+    private static final String ICON_BLACKLIST = IconBlacklistIndex.ICON_BLACKLIST;
 
     private static final String STATUS_BAR_CLOCK = "status_bar_clock";
     private static final String STATUS_BAR_BATTERY_STYLE = "status_bar_battery_style";
@@ -78,6 +80,8 @@ public class StatusBarSettings extends SettingsPreferenceFragment
     private PreferenceCategory mStatusBarBatteryCategory;
     private PreferenceCategory mStatusBarClockCategory;
 
+    private SettingsChangeTracker mChangeTracker;
+
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -88,6 +92,7 @@ public class StatusBarSettings extends SettingsPreferenceFragment
         mStatusBarClockCategory = prefScreen.findPreference(CATEGORY_CLOCK);
         mStatusBarClock = findPreference(STATUS_BAR_CLOCK);
         mStatusBarClock.setOnPreferenceChangeListener(this);
+        setClockPositionEntries();
 
         mStatusBarBatteryCategory = prefScreen.findPreference(CATEGORY_BATTERY);
         mStatusBarBatteryShowPercent = findPreference(STATUS_BAR_SHOW_BATTERY_PERCENT);
@@ -98,57 +103,103 @@ public class StatusBarSettings extends SettingsPreferenceFragment
         mShowFourg = findPreference(KEY_SHOW_FOURG);
         mOldMobileType = findPreference(KEY_USE_OLD_MOBILETYPE);
 
-        if (!TelephonyUtils.isVoiceCapable(getActivity())) {
+        if (!DeviceCapabilities.get(getActivity()).isVoiceCapable()) {
             prefScreen.removePreference(mShowFourg);
             prefScreen.removePreference(mOldMobileType);
         }
+
+        // Observed until onDestroy so that onResume only rebinds what changed meanwhile,
+        // and changes while resumed are rebound right away
+        mChangeTracker = new SettingsChangeTracker(getContext())
+                .trackSecure(ICON_BLACKLIST)
+                .trackSystem(Settings.System.STATUS_BAR_CLOCK)
+                .trackSystem(Settings.System.NETWORK_TRAFFIC_LOCATION)
+                .setListener(() -> {
+                    if (isResumed()) {
+                        rebindChanged();
+                    }
+                });
+        mChangeTracker.register();
+
+        DeviceCapabilities.get(getActivity()).addCallback(mCapabilitiesCallback);
     }
 
     @Override
     public void onResume() {
         super.onResume();
+        rebindChanged();
+    }
 
-        final String curIconBlacklist = Settings.Secure.getString(getContext().getContentResolver(),
-                ICON_BLACKLIST);
+    private void rebindChanged() {
+        if (!mChangeTracker.hasDirtyKeys()) {
+            return;
+        }
 
-        if (TextUtils.delimitedStringContains(curIconBlacklist, ',', "clock")) {
-            getPreferenceScreen().removePreference(mStatusBarClockCategory);
-        } else {
-            getPreferenceScreen().addPreference(mStatusBarClockCategory);
+        final AlphaSettingsSnapshot snapshot = AlphaSettingsSnapshot.get(getContext());
+
+        if (mChangeTracker.isDirty(ICON_BLACKLIST)) {
+            final IconBlacklistIndex iconBlacklist =
+                    IconBlacklistIndex.of(snapshot.getSecureString(ICON_BLACKLIST));
+
+            if (iconBlacklist.isHidden("clock")) {
+                getPreferenceScreen().removePreference(mStatusBarClockCategory);
+            } else {
+                getPreferenceScreen().addPreference(mStatusBarClockCategory);
+            }
+
+            if (iconBlacklist.isHidden("battery")) {
+                getPreferenceScreen().removePreference(mStatusBarBatteryCategory);
+            } else {
+                getPreferenceScreen().addPreference(mStatusBarBatteryCategory);
+            }
         }
 
-        if (TextUtils.delimitedStringContains(curIconBlacklist, ',', "battery")) {
-            getPreferenceScreen().removePreference(mStatusBarBatteryCategory);
-        } else {
-            getPreferenceScreen().addPreference(mStatusBarBatteryCategory);
+        if (mChangeTracker.isDirty(Settings.System.NETWORK_TRAFFIC_LOCATION)
+                || mChangeTracker.isDirty(Settings.System.STATUS_BAR_CLOCK)) {
+            if (isNetworkTrafficOnStatusBar(snapshot)){
+                mStatusBarClock.setEnabled(false);
+                mStatusBarClock.setSummary(R.string.status_bar_clock_position_disabled_summary);
+            }else{
+                int value = snapshot.getSystemInt(Settings.System.STATUS_BAR_CLOCK,
+                        CLOCK_POSITION_DEFAULT);
+                mStatusBarClock.setEnabled(true);
+                mStatusBarClock.setValue(String.valueOf(value));
+                updateClockSummary(value);
+            }
         }
 
-        if (isNetworkTrafficOnStatusBar()){
-            mStatusBarClock.setEnabled(false);
-            mStatusBarClock.setSummary(R.string.status_bar_clock_position_disabled_summary);
-        }else{
-            int value = Settings.System.getInt(getContentResolver(),
-                Settings.System.STATUS_BAR_CLOCK, CLOCK_POSITION_DEFAULT);
-            mStatusBarClock.setEnabled(true);
-            mStatusBarClock.setValue(String.valueOf(value));
-            updateClockSummary(value);
-            boolean disallowCenteredClock = CutoutUtils.hasCenteredCutout(getActivity());
-            // Adjust status bar preferences for RTL
-            if (getResources().getConfiguration().getLayoutDirection() == View.LAYOUT_DIRECTION_RTL) {
-                if (disallowCenteredClock) {
-                    mStatusBarClock.setEntries(R.array.status_bar_clock_position_entries_notch_rtl);
-                    mStatusBarClock.setEntryValues(R.array.status_bar_clock_position_values_notch_rtl);
-                } else {
-                    mStatusBarClock.setEntries(R.array.status_bar_clock_position_entries_rtl);
-                    mStatusBarClock.setEntryValues(R.array.status_bar_clock_position_values_rtl);
-                }
-            } else if (disallowCenteredClock) {
-                mStatusBarClock.setEntries(R.array.status_bar_clock_position_entries_notch);
-                mStatusBarClock.setEntryValues(R.array.status_bar_clock_position_values_notch);
+        mChangeTracker.clearDirty();
+    }
+
+    @Override
+    public void onDestroy() {
+        mChangeTracker.unregister();
+        DeviceCapabilities.get(getActivity()).removeCallback(mCapabilitiesCallback);
+        super.onDestroy();
+    }
+
+    private final DeviceCapabilities.Callback mCapabilitiesCallback =
+            capabilities -> setClockPositionEntries();
+
+    private void setClockPositionEntries() {
+        final DeviceCapabilities capabilities = DeviceCapabilities.get(getActivity());
+        boolean disallowCenteredClock = capabilities.hasCenteredCutout();
+        // Adjust status bar preferences for RTL, the fragment's own configuration is current
+        // even before the configuration broadcast arrives
+        if (getResources().getConfiguration().getLayoutDirection() == View.LAYOUT_DIRECTION_RTL) {
+            if (disallowCenteredClock) {
+                mStatusBarClock.setEntries(R.array.status_bar_clock_position_entries_notch_rtl);
+                mStatusBarClock.setEntryValues(R.array.status_bar_clock_position_values_notch_rtl);
             } else {
-                mStatusBarClock.setEntries(R.array.status_bar_clock_position_entries);
-                mStatusBarClock.setEntryValues(R.array.status_bar_clock_position_values);
+                mStatusBarClock.setEntries(R.array.status_bar_clock_position_entries_rtl);
+                mStatusBarClock.setEntryValues(R.array.status_bar_clock_position_values_rtl);
             }
+        } else if (disallowCenteredClock) {
+            mStatusBarClock.setEntries(R.array.status_bar_clock_position_entries_notch);
+            mStatusBarClock.setEntryValues(R.array.status_bar_clock_position_values_notch);
+        } else {
+            mStatusBarClock.setEntries(R.array.status_bar_clock_position_entries);
+            mStatusBarClock.setEntryValues(R.array.status_bar_clock_position_values);
         }
     }
 
@@ -188,18 +239,38 @@ public class StatusBarSettings extends SettingsPreferenceFragment
         }
     }
 
-    private boolean isNetworkTrafficOnStatusBar(){
-        int mode = Settings.System.getInt(getContentResolver(),
-                Settings.System.NETWORK_TRAFFIC_LOCATION, 0);
+    private boolean isNetworkTrafficOnStatusBar(AlphaSettingsSnapshot snapshot){
+        int mode = snapshot.getSystemInt(Settings.System.NETWORK_TRAFFIC_LOCATION, 0);
         return mode == 1;
     }
 
+    /**
+     * Warms what this screen reads when it opens. Called off the main thread.
+     */
+    public static void prefetch(Context context) {
+        final AlphaSettingsSnapshot snapshot = AlphaSettingsSnapshot.get(context);
+        snapshot.ensureLoaded();
+        IconBlacklistIndex.of(snapshot.getSecureString(ICON_BLACKLIST));
+        DeviceCapabilities.get(context);
+    }
+
     @Override
     public int getMetricsCategory() {
         return MetricsEvent.ALPHA;
     }
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider(R.xml.sb_settings);
+            new BaseSearchIndexProvider(R.xml.sb_settings) {
+                @Override
+                public List<String> getNonIndexableKeys(Context context) {
+                    final List<String> keys = super.getNonIndexableKeys(context);
+                    // Same gate as onCreate, answered from the cached capabilities
+                    if (!DeviceCapabilities.get(context).isVoiceCapable()) {
+                        keys.add(KEY_SHOW_FOURG);
+                        keys.add(KEY_USE_OLD_MOBILETYPE);
+                    }
+                    return keys;
+                }
+            };
 
 }
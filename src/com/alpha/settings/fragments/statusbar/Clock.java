@@ -16,16 +16,27 @@
 package com.alpha.settings.fragments.statusbar;
 
 import android.app.AlertDialog;
+import android.content.BroadcastReceiver;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.content.DialogInterface.OnCancelListener;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.UserHandle;
 import android.provider.Settings;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.text.format.DateFormat;
 import android.view.Menu;
+import android.widget.Button;
 import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.preference.ListPreference;
 import androidx.preference.Preference;
@@ -33,17 +44,21 @@ import androidx.preference.PreferenceScreen;
 import androidx.preference.Preference.OnPreferenceChangeListener;
 import androidx.preference.SwitchPreference;
 
+import com.alpha.settings.fragments.AlphaPreferenceFragment;
+import com.alpha.settings.utils.AlphaSettingsSnapshot;
+import com.alpha.settings.utils.SettingsDefaults;
+import com.alpha.settings.utils.SettingsWritePipeline;
+
 import com.android.internal.logging.nano.MetricsProto.MetricsEvent;
 import com.android.settings.R;
-import com.android.settings.SettingsPreferenceFragment;
 
 import com.android.settings.custom.preference.CustomSeekBarPreference;
 import com.android.settings.custom.preference.SystemSettingListPreference;
+import com.android.settingslib.utils.ThreadUtils;
 
-import java.util.Date;
-
-public class Clock extends SettingsPreferenceFragment
-            implements Preference.OnPreferenceChangeListener  {
+public class Clock extends AlphaPreferenceFragment
+            implements Preference.OnPreferenceChangeListener,
+            SettingsWritePipeline.OnWriteFailedListener  {
 
     private static final String TAG = "Clock";
 
@@ -52,16 +67,32 @@ public class Clock extends SettingsPreferenceFragment
     private static final String CLOCK_DATE_POSITION = "status_bar_clock_date_position";
     private static final String CLOCK_DATE_STYLE = "status_bar_clock_date_style";
     private static final String CLOCK_DATE_FORMAT = "status_bar_clock_date_format";
+    private static final String CLOCK_SIZE = "status_bar_clock_size";
+    private static final String CLOCK_AUTO_HIDE_HDURATION = "status_bar_clock_auto_hide_hduration";
+    private static final String CLOCK_AUTO_HIDE_SDURATION = "status_bar_clock_auto_hide_sduration";
 
-    private static final int CLOCK_DATE_STYLE_LOWERCASE = 1;
-    private static final int CLOCK_DATE_STYLE_UPPERCASE = 2;
     private static final int CUSTOM_CLOCK_DATE_FORMAT_INDEX = 18;
+    private static final long DATE_FORMAT_VALIDATION_DELAY_MS = 300;
 
     private SystemSettingListPreference mStatusBarAmPm;
     private SystemSettingListPreference mClockDateDisplay;
     private SystemSettingListPreference mClockDatePosition;
     private SystemSettingListPreference mClockDateStyle;
     private ListPreference mClockDateFormat;
+    private SettingsWritePipeline mWritePipeline;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private ClockDateFormatValidator.Result mLastDateFormatResult;
+    // Bumped per scheduled validation, results of older ones are dropped
+    private int mDateFormatValidationSeq;
+
+    private final BroadcastReceiver mDateChangeReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            ClockDatePreviews.invalidate();
+            parseClockDateFormats(getClockDateStyle());
+        }
+    };
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
@@ -69,8 +100,6 @@ public class Clock extends SettingsPreferenceFragment
 
         addPreferencesFromResource(R.xml.status_bar_clock);
 
-        ContentResolver resolver = getActivity().getContentResolver();
-
         mStatusBarAmPm =
                 (SystemSettingListPreference) findPreference(STATUS_BAR_AM_PM);
 
@@ -79,8 +108,8 @@ public class Clock extends SettingsPreferenceFragment
             mStatusBarAmPm.setSummary(R.string.status_bar_am_pm_info);
         }
 
-        int dateDisplay = Settings.System.getIntForUser(resolver,
-                Settings.System.STATUS_BAR_CLOCK_DATE_DISPLAY, 0, UserHandle.USER_CURRENT);
+        int dateDisplay = AlphaSettingsSnapshot.get(getActivity()).getSystemInt(
+                Settings.System.STATUS_BAR_CLOCK_DATE_DISPLAY, 0);
 
         mClockDateDisplay = (SystemSettingListPreference) findPreference(CLOCK_DATE_DISPLAY);
         mClockDateDisplay.setOnPreferenceChangeListener(this);
@@ -97,15 +126,39 @@ public class Clock extends SettingsPreferenceFragment
         if (mClockDateFormat.getValue() == null) {
             mClockDateFormat.setValue("EEE");
         }
-        parseClockDateFormats();
         mClockDateFormat.setEnabled(dateDisplay > 0);
         mClockDateFormat.setOnPreferenceChangeListener(this);
+
+        // Seek bars may persist on every drag step, only let the settled value through
+        mWritePipeline = new SettingsWritePipeline(getActivity());
+        mWritePipeline.attach(findPreference(CLOCK_SIZE),
+                findPreference(CLOCK_AUTO_HIDE_HDURATION),
+                findPreference(CLOCK_AUTO_HIDE_SDURATION),
+                mStatusBarAmPm, mClockDateDisplay, mClockDatePosition, mClockDateStyle);
+        mWritePipeline.setOnWriteFailedListener(this);
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        final IntentFilter filter = new IntentFilter(Intent.ACTION_DATE_CHANGED);
+        filter.addAction(Intent.ACTION_LOCALE_CHANGED);
+        filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+        getActivity().registerReceiver(mDateChangeReceiver, filter);
+        // Picks up a day change that happened while paused
+        parseClockDateFormats(getClockDateStyle());
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        mWritePipeline.flush();
+        getActivity().unregisterReceiver(mDateChangeReceiver);
     }
 
     @Override
     public boolean onPreferenceChange(Preference preference, Object newValue) {
       AlertDialog dialog;
-      ContentResolver resolver = getActivity().getContentResolver();
       if (preference == mClockDateDisplay) {
           int val = Integer.parseInt((String) newValue);
           if (val == 0) {
@@ -119,10 +172,10 @@ public class Clock extends SettingsPreferenceFragment
           }
           return true;
         } else if (preference == mClockDatePosition) {
-            parseClockDateFormats();
+            parseClockDateFormats(getClockDateStyle());
             return true;
       } else if (preference == mClockDateStyle) {
-          parseClockDateFormats();
+          parseClockDateFormats(Integer.parseInt((String) newValue));
           return true;
       } else if (preference == mClockDateFormat) {
           int index = mClockDateFormat.findIndexOfValue((String) newValue);
@@ -133,21 +186,22 @@ public class Clock extends SettingsPreferenceFragment
               alert.setMessage(R.string.status_bar_date_string_edittext_summary);
 
               final EditText input = new EditText(getActivity());
-              String oldText = Settings.System.getString(
-                  resolver,
-                  Settings.System.STATUS_BAR_CLOCK_DATE_FORMAT);
-              if (oldText != null) {
-                  input.setText(oldText);
-              }
-              alert.setView(input);
+              final TextView preview = new TextView(getActivity());
+              final LinearLayout container = new LinearLayout(getActivity());
+              container.setOrientation(LinearLayout.VERTICAL);
+              container.addView(input);
+              container.addView(preview);
+              alert.setView(container);
 
               alert.setPositiveButton(R.string.menu_save, new DialogInterface.OnClickListener() {
                   public void onClick(DialogInterface dialogInterface, int whichButton) {
                       String value = input.getText().toString();
-                      if (value.equals("")) {
+                      // Save is only enabled once the current text passed validation
+                      if (mLastDateFormatResult == null || !mLastDateFormatResult.valid
+                              || !value.equals(mLastDateFormatResult.pattern)) {
                           return;
                       }
-                      Settings.System.putString(resolver,
+                      mWritePipeline.putStringNow(
                           Settings.System.STATUS_BAR_CLOCK_DATE_FORMAT, value);
 
                       return;
@@ -161,10 +215,38 @@ public class Clock extends SettingsPreferenceFragment
                   }
               });
               dialog = alert.create();
+              dialog.setOnDismissListener(d -> {
+                  mHandler.removeCallbacksAndMessages(null);
+                  mDateFormatValidationSeq++;
+              });
               dialog.show();
+
+              final Button save = dialog.getButton(DialogInterface.BUTTON_POSITIVE);
+              input.addTextChangedListener(new TextWatcher() {
+                  @Override
+                  public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+                  }
+
+                  @Override
+                  public void onTextChanged(CharSequence s, int start, int before, int count) {
+                  }
+
+                  @Override
+                  public void afterTextChanged(Editable s) {
+                      scheduleDateFormatValidation(s.toString(), preview, save);
+                  }
+              });
+              // The pipeline sees a format that is still being written
+              String oldText = mWritePipeline.getString(
+                  Settings.System.STATUS_BAR_CLOCK_DATE_FORMAT, null);
+              if (oldText != null) {
+                  input.setText(oldText);
+              } else {
+                  scheduleDateFormatValidation("", preview, save);
+              }
           } else {
               if ((String) newValue != null) {
-                  Settings.System.putString(resolver,
+                  mWritePipeline.putStringNow(
                       Settings.System.STATUS_BAR_CLOCK_DATE_FORMAT, (String) newValue);
               }
           }
@@ -173,61 +255,96 @@ public class Clock extends SettingsPreferenceFragment
       return false;
     }
 
-    private void parseClockDateFormats() {
-        String[] dateEntries = getResources().getStringArray(
-                R.array.status_bar_date_format_entries_values);
-        CharSequence parsedDateEntries[];
-        parsedDateEntries = new String[dateEntries.length];
-        Date now = new Date();
-
-        int lastEntry = dateEntries.length - 1;
-        int dateFormat = Settings.System.getIntForUser(getActivity()
-                .getContentResolver(), Settings.System.STATUS_BAR_CLOCK_DATE_STYLE, 0, UserHandle.USER_CURRENT);
-        for (int i = 0; i < dateEntries.length; i++) {
-            if (i == lastEntry) {
-                parsedDateEntries[i] = dateEntries[i];
-            } else {
-                String newDate;
-                CharSequence dateString = DateFormat.format(dateEntries[i], now);
-                if (dateFormat == CLOCK_DATE_STYLE_LOWERCASE) {
-                    newDate = dateString.toString().toLowerCase();
-                } else if (dateFormat == CLOCK_DATE_STYLE_UPPERCASE) {
-                    newDate = dateString.toString().toUpperCase();
-                } else {
-                    newDate = dateString.toString();
-                }
+    @Override
+    public void onWriteFailed(String key) {
+        if (getActivity() == null) {
+            return;
+        }
+        Toast.makeText(getActivity(), R.string.settings_write_failed, Toast.LENGTH_SHORT).show();
+        final Preference preference = findPreference(key);
+        if (preference == null) {
+            return;
+        }
+        final ContentResolver resolver = getActivity().getContentResolver();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final String value = Settings.System.getStringForUser(resolver, key,
+                    UserHandle.USER_CURRENT);
+            ThreadUtils.postOnMainThread(() -> reconcile(preference, value));
+        });
+    }
 
-                parsedDateEntries[i] = newDate;
+    /**
+     * Puts {@code preference} back in line with what the provider actually holds after its
+     * write failed. Nothing is reset while the provider holds no value at all.
+     */
+    private void reconcile(Preference preference, String value) {
+        if (getActivity() == null || value == null) {
+            return;
+        }
+        // Persists again, but only the value the provider already holds
+        if (preference instanceof CustomSeekBarPreference) {
+            try {
+                ((CustomSeekBarPreference) preference).setValue(Integer.parseInt(value));
+            } catch (NumberFormatException e) {
+                return;
             }
+        } else if (preference instanceof ListPreference) {
+            ((ListPreference) preference).setValue(value);
+        }
+        if (preference == mClockDateDisplay) {
+            final boolean enabled = !"0".equals(value);
+            mClockDatePosition.setEnabled(enabled);
+            mClockDateStyle.setEnabled(enabled);
+            mClockDateFormat.setEnabled(enabled);
+        } else if (preference == mClockDateStyle || preference == mClockDatePosition) {
+            parseClockDateFormats(getClockDateStyle());
         }
-        mClockDateFormat.setEntries(parsedDateEntries);
+    }
+
+    private void scheduleDateFormatValidation(String pattern, TextView preview, Button save) {
+        save.setEnabled(false);
+        final int seq = ++mDateFormatValidationSeq;
+        mHandler.removeCallbacksAndMessages(null);
+        mHandler.postDelayed(() -> ThreadUtils.postOnBackgroundThread(() -> {
+            final ClockDateFormatValidator.Result result =
+                    ClockDateFormatValidator.validate(pattern);
+            ThreadUtils.postOnMainThread(() -> {
+                // Background tasks may finish out of order
+                if (seq != mDateFormatValidationSeq) {
+                    return;
+                }
+                mLastDateFormatResult = result;
+                if (result.valid) {
+                    preview.setText(result.preview);
+                } else {
+                    preview.setText(result.errorRes);
+                }
+                save.setEnabled(result.valid);
+            });
+        }), DATE_FORMAT_VALIDATION_DELAY_MS);
+    }
+
+    private void parseClockDateFormats(int dateStyle) {
+        mClockDateFormat.setEntries(ClockDatePreviews.getEntries(getActivity(), dateStyle));
+    }
+
+    private int getClockDateStyle() {
+        // Written through the pipeline, which also serves values not yet in the provider
+        return mWritePipeline.getInt(CLOCK_DATE_STYLE, 0);
+    }
+
+    /**
+     * Warms what this screen reads when it opens. Called off the main thread.
+     */
+    public static void prefetch(Context context) {
+        final AlphaSettingsSnapshot snapshot = AlphaSettingsSnapshot.get(context);
+        snapshot.ensureLoaded();
+        ClockDatePreviews.getEntries(context,
+                snapshot.getSystemInt(Settings.System.STATUS_BAR_CLOCK_DATE_STYLE, 0));
     }
 
     public static void reset(Context mContext) {
-        ContentResolver resolver = mContext.getContentResolver();
-
-        Settings.System.putIntForUser(resolver,
-                Settings.System.STATUS_BAR_CLOCK_AUTO_HIDE, 0, UserHandle.USER_CURRENT);
-        Settings.System.putIntForUser(resolver,
-                Settings.System.STATUS_BAR_CLOCK_AUTO_HIDE_HDURATION, 60, UserHandle.USER_CURRENT);
-        Settings.System.putIntForUser(resolver,
-                Settings.System.STATUS_BAR_CLOCK_AUTO_HIDE_SDURATION, 5, UserHandle.USER_CURRENT);
-        Settings.System.putIntForUser(resolver,
-                Settings.System.STATUS_BAR_CLOCK_DATE_DISPLAY, 0, UserHandle.USER_CURRENT);
-        Settings.System.putIntForUser(resolver,
-                Settings.System.STATUS_BAR_CLOCK_DATE_POSITION, 0, UserHandle.USER_CURRENT);
-        Settings.System.putIntForUser(resolver,
-                Settings.System.STATUS_BAR_CLOCK_DATE_STYLE, 0, UserHandle.USER_CURRENT);
-        Settings.System.putString(resolver,
-                Settings.System.STATUS_BAR_CLOCK_DATE_FORMAT, "");
-        Settings.System.putIntForUser(resolver,
-                Settings.System.STATUS_BAR_CLOCK_SECONDS, 0, UserHandle.USER_CURRENT);
-        Settings.System.putIntForUser(resolver,
-                Settings.System.STATUS_BAR_CLOCK_SIZE, 14, UserHandle.USER_CURRENT);
-        Settings.System.putIntForUser(resolver,
-                Settings.System.STATUS_BAR_AM_PM, 0, UserHandle.USER_CURRENT);
-        Settings.System.putIntForUser(resolver,
-                Settings.System.STATUS_BAR_CLOCK_AUTO_HIDE, 0, UserHandle.USER_CURRENT);
+        SettingsDefaults.resetCategory(mContext, SettingsDefaults.CATEGORY_CLOCK);
     }
 
     @Override
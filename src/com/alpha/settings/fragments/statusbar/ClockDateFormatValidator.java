@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.fragments.statusbar;
+
+import android.text.TextUtils;
+import android.text.format.DateFormat;
+
+import com.android.settings.R;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Checks a custom status bar date pattern before it's written to Settings.
+ *
+ * SystemUI formats the pattern on every clock tick, so besides patterns that
+ * {@link SimpleDateFormat} can't parse, empty ones and ones longer than {@link #MAX_LENGTH}
+ * chars or {@link #MAX_FIELDS} date fields are rejected. Valid patterns come with a preview
+ * of today's date. Keep this off the main thread.
+ */
+final class ClockDateFormatValidator {
+
+    static final int MAX_LENGTH = 64;
+    static final int MAX_FIELDS = 8;
+
+    static final class Result {
+        final String pattern;
+        final boolean valid;
+        final CharSequence preview;
+        final int errorRes;
+
+        private Result(String pattern, boolean valid, CharSequence preview, int errorRes) {
+            this.pattern = pattern;
+            this.valid = valid;
+            this.preview = preview;
+            this.errorRes = errorRes;
+        }
+    }
+
+    private ClockDateFormatValidator() {
+    }
+
+    static Result validate(String pattern) {
+        if (TextUtils.isEmpty(pattern)) {
+            return invalid(pattern, R.string.status_bar_date_format_empty);
+        }
+        if (pattern.length() > MAX_LENGTH) {
+            return invalid(pattern, R.string.status_bar_date_format_too_long);
+        }
+        if (countFields(pattern) > MAX_FIELDS) {
+            return invalid(pattern, R.string.status_bar_date_format_too_many_fields);
+        }
+        try {
+            // Stricter than DateFormat.format(), which silently passes unknown letters through
+            new SimpleDateFormat(pattern);
+        } catch (IllegalArgumentException e) {
+            return invalid(pattern, R.string.status_bar_date_format_invalid);
+        }
+        return new Result(pattern, true, DateFormat.format(pattern, new Date()), 0);
+    }
+
+    /**
+     * Counts the runs of pattern letters outside quotes, e.g. 3 for "EEE, d MMM".
+     */
+    static int countFields(String pattern) {
+        int fields = 0;
+        boolean quoted = false;
+        char last = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+                last = 0;
+            } else if (!quoted && ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                if (c != last) {
+                    fields++;
+                }
+                last = c;
+            } else {
+                last = 0;
+            }
+        }
+        return fields;
+    }
+
+    private static Result invalid(String pattern, int errorRes) {
+        return new Result(pattern, false, null, errorRes);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.fragments.statusbar;
+
+import android.content.Context;
+import android.text.format.DateFormat;
+
+import com.android.settings.R;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Formatted previews of status_bar_date_format_entries_values for the date format list.
+ *
+ * All three case styles are formatted together once per (day, locale). Switching the date
+ * position or style afterwards just hands out a different precomputed array.
+ */
+final class ClockDatePreviews {
+
+    static final int STYLE_NORMAL = 0;
+    static final int STYLE_LOWERCASE = 1;
+    static final int STYLE_UPPERCASE = 2;
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static long sDay = -1;
+    private static Locale sLocale;
+    private static CharSequence[][] sEntries;
+
+    private ClockDatePreviews() {
+    }
+
+    /**
+     * Returns the preview entries for {@code style}. The array is shared and must not be
+     * modified.
+     */
+    static synchronized CharSequence[] getEntries(Context context, int style) {
+        final long now = System.currentTimeMillis();
+        final long day = (now + TimeZone.getDefault().getOffset(now)) / DAY_MILLIS;
+        final Locale locale = context.getResources().getConfiguration().getLocales().get(0);
+        if (sEntries == null || day != sDay || !locale.equals(sLocale)) {
+            sEntries = format(context, new Date(now));
+            sDay = day;
+            sLocale = locale;
+        }
+        if (style == STYLE_LOWERCASE || style == STYLE_UPPERCASE) {
+            return sEntries[style];
+        }
+        return sEntries[STYLE_NORMAL];
+    }
+
+    /**
+     * Drops the cached previews, e.g. when the date, time zone or locale changed.
+     */
+    static synchronized void invalidate() {
+        sEntries = null;
+    }
+
+    private static CharSequence[][] format(Context context, Date now) {
+        final String[] dateEntries = context.getResources().getStringArray(
+                R.array.status_bar_date_format_entries_values);
+        final CharSequence[][] entries = new CharSequence[3][dateEntries.length];
+        final int lastEntry = dateEntries.length - 1;
+        for (int i = 0; i < dateEntries.length; i++) {
+            if (i == lastEntry) {
+                // The last entry is the "custom" label, not a pattern
+                entries[STYLE_NORMAL][i] = dateEntries[i];
+                entries[STYLE_LOWERCASE][i] = dateEntries[i];
+                entries[STYLE_UPPERCASE][i] = dateEntries[i];
+            } else {
+                final String dateString = DateFormat.format(dateEntries[i], now).toString();
+                entries[STYLE_NORMAL][i] = dateString;
+                entries[STYLE_LOWERCASE][i] = dateString.toLowerCase();
+                entries[STYLE_UPPERCASE][i] = dateString.toUpperCase();
+            }
+        }
+        return entries;
+    }
+}
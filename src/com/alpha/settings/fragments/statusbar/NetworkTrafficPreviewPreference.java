@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.fragments.statusbar;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.preference.Preference;
+import androidx.preference.PreferenceViewHolder;
+
+import com.alpha.settings.utils.TrafficCounterSource;
+import com.alpha.settings.utils.TrafficRateFormatter;
+import com.alpha.settings.utils.TrafficSampler;
+
+import com.android.settings.R;
+
+import java.io.File;
+
+/**
+ * Shows the current download and upload rates in the unit the meter would use.
+ *
+ * Counters are sampled by a {@link TrafficSampler} on its background thread, less often
+ * while the link is idle. A new sample only marks the text dirty; it is rendered on the next
+ * vsync through {@link Choreographer}, straight into the bound summary view without
+ * allocating. The owning fragment calls {@link #resume()} and {@link #pause()}, nothing is
+ * sampled in between.
+ */
+public class NetworkTrafficPreviewPreference extends Preference
+        implements TrafficSampler.Listener, Choreographer.FrameCallback {
+
+    private static final File PROC_NET_DEV = new File("/proc/net/dev");
+    private static final char DOWN = '\u2193';
+    private static final char UP = '\u2191';
+
+    private final TrafficSampler mSampler;
+    private final TrafficRateFormatter mFormatter;
+    private final char[] mText = new char[80];
+    private int mTextLength;
+
+    private TextView mSummaryView;
+    private int mUnitType = TrafficRateFormatter.UNIT_BYTES;
+    private long mRxRate;
+    private long mTxRate;
+    private boolean mHasSample;
+    private boolean mFramePending;
+
+    public NetworkTrafficPreviewPreference(Context context) {
+        this(context, null);
+    }
+
+    public NetworkTrafficPreviewPreference(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        setSelectable(false);
+        setSummary(R.string.network_traffic_preview_waiting);
+        mFormatter = new TrafficRateFormatter(
+                context.getResources().getConfiguration().getLocales().get(0));
+        // /proc/net/dev gives per-interface counters without loopback, TrafficStats is the
+        // fallback where it isn't readable. Whichever reads first is kept for good.
+        mSampler = new TrafficSampler(TrafficCounterSource.firstReadable(
+                TrafficCounterSource.procNetDev(PROC_NET_DEV),
+                TrafficCounterSource.trafficStats()), this);
+    }
+
+    public void setUnitType(int unitType) {
+        if (mUnitType != unitType) {
+            mUnitType = unitType;
+            scheduleFrame();
+        }
+    }
+
+    public void resume() {
+        mSampler.start();
+    }
+
+    public void pause() {
+        mSampler.stop();
+        if (mFramePending) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            mFramePending = false;
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(PreferenceViewHolder holder) {
+        super.onBindViewHolder(holder);
+        mFormatter.setLocale(getContext().getResources().getConfiguration().getLocales().get(0));
+        mSummaryView = (TextView) holder.findViewById(android.R.id.summary);
+        if (mSummaryView != null) {
+            mSummaryView.setVisibility(View.VISIBLE);
+            render();
+        }
+    }
+
+    @Override
+    public void onSample(long rxBytesPerSec, long txBytesPerSec) {
+        mRxRate = rxBytesPerSec;
+        mTxRate = txBytesPerSec;
+        mHasSample = true;
+        scheduleFrame();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mFramePending = false;
+        render();
+    }
+
+    private void scheduleFrame() {
+        // Samples arriving within one frame collapse into a single render
+        if (!mFramePending) {
+            mFramePending = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    private void render() {
+        if (mSummaryView == null || !mHasSample) {
+            return;
+        }
+        mTextLength = 0;
+        mText[mTextLength++] = DOWN;
+        mText[mTextLength++] = ' ';
+        append(mFormatter.format(mRxRate, mUnitType));
+        mText[mTextLength++] = ' ';
+        mText[mTextLength++] = ' ';
+        mText[mTextLength++] = UP;
+        mText[mTextLength++] = ' ';
+        append(mFormatter.format(mTxRate, mUnitType));
+        mSummaryView.setText(mText, 0, mTextLength);
+    }
+
+    private void append(int length) {
+        System.arraycopy(mFormatter.getBuffer(), 0, mText, mTextLength, length);
+        mTextLength += length;
+    }
+}
@@ -18,6 +18,7 @@ package com.alpha.settings.fragments.statusbar;
 
 import android.content.ContentResolver;
 import android.os.Bundle;
+import android.os.UserHandle;
 import android.provider.Settings;
 import android.widget.Toast;
 
@@ -25,42 +26,55 @@ import androidx.preference.DropDownPreference;
 import androidx.preference.Preference;
 import androidx.preference.SwitchPreference;
 
+import com.alpha.settings.fragments.AlphaPreferenceFragment;
+import com.alpha.settings.utils.AlphaSettingsSnapshot;
+import com.alpha.settings.utils.DeviceCapabilities;
+import com.alpha.settings.utils.SettingsWritePipeline;
+
 import com.android.internal.logging.nano.MetricsProto.MetricsEvent;
 import com.android.settings.R;
-import com.android.settings.SettingsPreferenceFragment;
+import com.android.settingslib.utils.ThreadUtils;
 
-public class NetworkTrafficSettings extends SettingsPreferenceFragment
-        implements Preference.OnPreferenceChangeListener  {
+public class NetworkTrafficSettings extends AlphaPreferenceFragment
+        implements Preference.OnPreferenceChangeListener,
+        SettingsWritePipeline.OnWriteFailedListener  {
 
     private static final String TAG = "NetworkTrafficSettings";
 
     private DropDownPreference mNetTrafficMode;
     private SwitchPreference mNetTrafficAutohide;
     private DropDownPreference mNetTrafficUnitType;
+    private NetworkTrafficPreviewPreference mNetTrafficPreview;
+    private SettingsWritePipeline mWritePipeline;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         addPreferencesFromResource(R.xml.network_traffic_settings);
-        final ContentResolver resolver = getActivity().getContentResolver();
+        mWritePipeline = new SettingsWritePipeline(getActivity());
+        mWritePipeline.setOnWriteFailedListener(this);
+        final AlphaSettingsSnapshot snapshot = AlphaSettingsSnapshot.get(getActivity());
 
         mNetTrafficMode = findPreference(Settings.System.NETWORK_TRAFFIC_LOCATION);
         mNetTrafficMode.setOnPreferenceChangeListener(this);
-        int mode = Settings.System.getInt(resolver,
-                Settings.System.NETWORK_TRAFFIC_LOCATION, 0);
+        int mode = snapshot.getSystemInt(Settings.System.NETWORK_TRAFFIC_LOCATION, 0);
         mNetTrafficMode.setValue(String.valueOf(mode));
 
         mNetTrafficAutohide = findPreference(Settings.System.NETWORK_TRAFFIC_AUTOHIDE);
         mNetTrafficAutohide.setOnPreferenceChangeListener(this);
+        mWritePipeline.attach(mNetTrafficAutohide);
 
         mNetTrafficUnitType = findPreference(Settings.System.NETWORK_TRAFFIC_UNIT_TYPE);
         mNetTrafficUnitType.setOnPreferenceChangeListener(this);
-        int units = Settings.System.getInt(resolver,
-                Settings.System.NETWORK_TRAFFIC_UNIT_TYPE, /* Bytes */ 0);
+        int units = snapshot.getSystemInt(Settings.System.NETWORK_TRAFFIC_UNIT_TYPE,
+                /* Bytes */ 0);
         mNetTrafficUnitType.setValue(String.valueOf(units));
 
-        boolean allowedOnStatusBar = getResources().getBoolean(
-            com.android.internal.R.bool.config_supportsNetworkTrafficOnStatusBar);
+        mNetTrafficPreview = findPreference("network_traffic_preview");
+        mNetTrafficPreview.setUnitType(units);
+
+        boolean allowedOnStatusBar = DeviceCapabilities.get(getActivity())
+                .isNetworkTrafficOnStatusBarSupported();
         if (!allowedOnStatusBar){
             String[] locationEntriesNoStatusBar = getResources().getStringArray(R.array.network_traffic_mode_entries_no_statusbar);
             String[] locationEntriesNoStatusBarValues = getResources().getStringArray(R.array.network_traffic_mode_values_no_statusbar);
@@ -78,17 +92,66 @@ public class NetworkTrafficSettings extends SettingsPreferenceFragment
     public boolean onPreferenceChange(Preference preference, Object newValue) {
         if (preference == mNetTrafficMode) {
             int mode = Integer.valueOf((String) newValue);
-            Settings.System.putInt(getActivity().getContentResolver(),
-                    Settings.System.NETWORK_TRAFFIC_LOCATION, mode);
+            // Written off the main thread, the UI moves on optimistically
+            mWritePipeline.putIntNow(Settings.System.NETWORK_TRAFFIC_LOCATION, mode);
             updateEnabledStates(mode);
         } else if (preference == mNetTrafficUnitType) {
             int unitType = Integer.valueOf((String) newValue);
-            Settings.System.putInt(getActivity().getContentResolver(),
-                    Settings.System.NETWORK_TRAFFIC_UNIT_TYPE, unitType);
+            mWritePipeline.putIntNow(Settings.System.NETWORK_TRAFFIC_UNIT_TYPE, unitType);
+            mNetTrafficPreview.setUnitType(unitType);
         }
         return true;
     }
 
+    @Override
+    public void onResume() {
+        super.onResume();
+        mNetTrafficPreview.resume();
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        mNetTrafficPreview.pause();
+        mWritePipeline.flush();
+    }
+
+    @Override
+    public void onWriteFailed(String key) {
+        if (getActivity() == null) {
+            return;
+        }
+        Toast.makeText(getActivity(), R.string.settings_write_failed, Toast.LENGTH_SHORT).show();
+        final ContentResolver resolver = getActivity().getContentResolver();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final int mode = Settings.System.getIntForUser(resolver,
+                    Settings.System.NETWORK_TRAFFIC_LOCATION, 0, UserHandle.USER_CURRENT);
+            final int units = Settings.System.getIntForUser(resolver,
+                    Settings.System.NETWORK_TRAFFIC_UNIT_TYPE, 0, UserHandle.USER_CURRENT);
+            final boolean autohide = Settings.System.getIntForUser(resolver,
+                    Settings.System.NETWORK_TRAFFIC_AUTOHIDE, 0, UserHandle.USER_CURRENT) != 0;
+            ThreadUtils.postOnMainThread(() -> reconcile(mode, units, autohide));
+        });
+    }
+
+    /**
+     * Puts the UI back in line with what the provider actually holds after a failed write.
+     */
+    private void reconcile(int mode, int units, boolean autohide) {
+        if (getActivity() == null) {
+            return;
+        }
+        // Neither drop down is persistent, so setting them doesn't write again
+        mNetTrafficMode.setValue(String.valueOf(mode));
+        mNetTrafficUnitType.setValue(String.valueOf(units));
+        mNetTrafficPreview.setUnitType(units);
+        if (mNetTrafficAutohide.isChecked() != autohide) {
+            // Persists again, but only the value the provider already holds
+            mNetTrafficAutohide.setChecked(autohide);
+        }
+        updateEnabledStates(mode);
+    }
+
     private void updateEnabledStates(int mode) {
         final boolean enabled = mode != 0;
         mNetTrafficAutohide.setEnabled(enabled);
@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import android.app.ActivityManager;
+import android.content.BroadcastReceiver;
+import android.content.ContentProvider;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.UserHandle;
+import android.provider.Settings;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.util.SparseArray;
+
+/**
+ * Snapshot of the Settings.System and Settings.Secure values read by the Alpha screens.
+ *
+ * The dashboard calls {@link #ensureLoaded()} on a background thread so that each namespace
+ * is fetched with a single provider query before any sub-screen inflates. Screens then read
+ * through this class instead of issuing one provider call per key. Values that change are
+ * dropped from the snapshot and re-read on their next access. Only the tracked keys are
+ * observed, one uri each.
+ *
+ * Values are those of the current user, the same user the USER_CURRENT writers target. Each
+ * user gets its own snapshot and observers, so switching back to a user reuses what was
+ * already read for them. Snapshots other than those of the current and the previous user are
+ * evicted on a user switch, and a removed user's snapshot is evicted right away.
+ */
+public final class AlphaSettingsSnapshot {
+
+    private static final String TAG = "AlphaSettingsSnapshot";
+
+    private static final String[] SYSTEM_KEYS = {
+        Settings.System.SETTINGS_DASHBOARD_STYLE,
+        Settings.System.STATUS_BAR_CLOCK,
+        Settings.System.STATUS_BAR_CLOCK_DATE_DISPLAY,
+        Settings.System.STATUS_BAR_CLOCK_DATE_STYLE,
+        Settings.System.STATUS_BAR_CLOCK_DATE_FORMAT,
+        Settings.System.NETWORK_TRAFFIC_LOCATION,
+        Settings.System.NETWORK_TRAFFIC_UNIT_TYPE,
+        Settings.System.NETWORK_TRAFFIC_AUTOHIDE,
+        "qs_quick_pulldown",
+        // Read back by SettingsWritePipeline
+        "status_bar_am_pm",
+        "status_bar_clock_date_position",
+        "status_bar_clock_size",
+        "status_bar_clock_auto_hide_hduration",
+        "status_bar_clock_auto_hide_sduration",
+    };
+
+    private static final String[] SECURE_KEYS = {
+        IconBlacklistIndex.ICON_BLACKLIST,
+    };
+
+    private static AlphaSettingsSnapshot sInstance;
+
+    private final ContentResolver mResolver;
+    // Guarded by itself
+    private final SparseArray<UserState> mUsers = new SparseArray<>();
+    private volatile int mCurrentUser;
+
+    private final BroadcastReceiver mUserReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final int userId = intent.getIntExtra(Intent.EXTRA_USER_HANDLE, UserHandle.USER_NULL);
+            if (userId == UserHandle.USER_NULL) {
+                return;
+            }
+            if (Intent.ACTION_USER_SWITCHED.equals(intent.getAction())) {
+                final int previousUser = mCurrentUser;
+                mCurrentUser = userId;
+                evictAllBut(previousUser, userId);
+            } else {
+                evict(userId);
+            }
+        }
+    };
+
+    public static synchronized AlphaSettingsSnapshot get(Context context) {
+        if (sInstance == null) {
+            sInstance = new AlphaSettingsSnapshot(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private AlphaSettingsSnapshot(Context context) {
+        mResolver = context.getContentResolver();
+        mCurrentUser = ActivityManager.getCurrentUser();
+        final IntentFilter filter = new IntentFilter(Intent.ACTION_USER_SWITCHED);
+        filter.addAction(Intent.ACTION_USER_REMOVED);
+        context.registerReceiverAsUser(mUserReceiver, UserHandle.ALL, filter, null, null);
+    }
+
+    /**
+     * Loads every tracked key on the calling thread unless that already happened. For
+     * callers that are on a background thread anyway.
+     */
+    public void ensureLoaded() {
+        final UserState user = getUserState();
+        // Before the queries, so no change between them and the observers goes unseen
+        user.observe(mResolver);
+        user.system.ensureLoaded(mResolver);
+        user.secure.ensureLoaded(mResolver);
+    }
+
+    public String getSystemString(String key) {
+        return getUserState().system.get(mResolver, key);
+    }
+
+    public int getSystemInt(String key, int def) {
+        return parseInt(getSystemString(key), def);
+    }
+
+    public String getSecureString(String key) {
+        return getUserState().secure.get(mResolver, key);
+    }
+
+    public int getSecureInt(String key, int def) {
+        return parseInt(getSecureString(key), def);
+    }
+
+    /**
+     * Drops {@code key} so that its next read goes to the provider. For observers that learn
+     * about a change before the snapshot's own observer might.
+     */
+    public void invalidateSystem(String key) {
+        getUserState().system.invalidate(key);
+    }
+
+    public void invalidateSecure(String key) {
+        getUserState().secure.invalidate(key);
+    }
+
+    private UserState getUserState() {
+        final int userId = mCurrentUser;
+        synchronized (mUsers) {
+            UserState user = mUsers.get(userId);
+            if (user == null) {
+                user = new UserState(userId);
+                mUsers.put(userId, user);
+            }
+            return user;
+        }
+    }
+
+    private void evictAllBut(int keepA, int keepB) {
+        synchronized (mUsers) {
+            for (int i = mUsers.size() - 1; i >= 0; i--) {
+                final int userId = mUsers.keyAt(i);
+                if (userId != keepA && userId != keepB) {
+                    mUsers.valueAt(i).unobserve(mResolver);
+                    mUsers.removeAt(i);
+                }
+            }
+        }
+    }
+
+    private void evict(int userId) {
+        synchronized (mUsers) {
+            final UserState user = mUsers.get(userId);
+            if (user != null) {
+                user.unobserve(mResolver);
+                mUsers.remove(userId);
+            }
+        }
+    }
+
+    private static int parseInt(String value, int def) {
+        if (value == null) {
+            return def;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    /**
+     * Per-user namespaces and the observers that keep them fresh. Only values read after
+     * {@link #observe} are ever cached, since a namespace caches nothing until it is loaded.
+     */
+    private static final class UserState {
+        final int userId;
+        final Namespace system;
+        final Namespace secure;
+        private final ContentObserver mSystemObserver;
+        private final ContentObserver mSecureObserver;
+        // Guarded by this
+        private boolean mObserving;
+
+        UserState(int userId) {
+            this.userId = userId;
+            system = new Namespace(Settings.System.CONTENT_URI, SYSTEM_KEYS, false, userId);
+            secure = new Namespace(Settings.Secure.CONTENT_URI, SECURE_KEYS, true, userId);
+            mSystemObserver = new KeyObserver(system);
+            mSecureObserver = new KeyObserver(secure);
+        }
+
+        /**
+         * Observes every tracked key, and only those, so writes to other settings such as
+         * brightness don't call into this process.
+         */
+        synchronized void observe(ContentResolver resolver) {
+            if (mObserving) {
+                return;
+            }
+            mObserving = true;
+            for (String key : SYSTEM_KEYS) {
+                resolver.registerContentObserver(Settings.System.getUriFor(key), false,
+                        mSystemObserver, userId);
+            }
+            for (String key : SECURE_KEYS) {
+                resolver.registerContentObserver(Settings.Secure.getUriFor(key), false,
+                        mSecureObserver, userId);
+            }
+        }
+
+        synchronized void unobserve(ContentResolver resolver) {
+            if (mObserving) {
+                resolver.unregisterContentObserver(mSystemObserver);
+                resolver.unregisterContentObserver(mSecureObserver);
+                mObserving = false;
+            }
+        }
+    }
+
+    private static final class KeyObserver extends ContentObserver {
+        private final Namespace mNamespace;
+
+        KeyObserver(Namespace namespace) {
+            // No handler, invalidation is thread safe and cheap enough for a binder thread
+            super(null);
+            mNamespace = namespace;
+        }
+
+        @Override
+        public void onChange(boolean selfChange, Uri uri) {
+            if (uri != null) {
+                mNamespace.invalidate(uri.getLastPathSegment());
+            }
+        }
+    }
+
+    private static final class Namespace {
+        private final Uri mUri;
+        private final String[] mKeys;
+        private final boolean mSecure;
+        private final int mUserId;
+
+        // Copy-on-write, null until loaded. A tracked key mapped to null is unset.
+        private volatile ArrayMap<String, String> mValues;
+        // Bumped by every invalidate(), guarded by this. A provider read only gets published
+        // if no invalidation happened since it started, otherwise it may predate the change.
+        private int mGeneration;
+
+        Namespace(Uri uri, String[] keys, boolean secure, int userId) {
+            mUri = uri;
+            mKeys = keys;
+            mSecure = secure;
+            mUserId = userId;
+        }
+
+        void load(ContentResolver resolver) {
+            final int generation;
+            synchronized (this) {
+                generation = mGeneration;
+            }
+            final ArrayMap<String, String> values = new ArrayMap<>(mKeys.length);
+            for (String key : mKeys) {
+                values.put(key, null);
+            }
+            final String[] projection = {Settings.NameValueTable.NAME,
+                    Settings.NameValueTable.VALUE};
+            final Uri uri = ContentProvider.maybeAddUserId(mUri, mUserId);
+            StartupStats.noteBinderCall();
+            try (Cursor cursor = resolver.query(uri, projection, null, null, null)) {
+                if (cursor == null) {
+                    return;
+                }
+                while (cursor.moveToNext()) {
+                    final String name = cursor.getString(0);
+                    if (values.containsKey(name)) {
+                        values.put(name, cursor.getString(1));
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Unable to query " + mUri, e);
+                return;
+            }
+            synchronized (this) {
+                // Otherwise stay unloaded, reads go to the provider until the next load
+                if (generation == mGeneration) {
+                    mValues = values;
+                }
+            }
+        }
+
+        void ensureLoaded(ContentResolver resolver) {
+            if (mValues == null) {
+                load(resolver);
+            }
+        }
+
+        String get(ContentResolver resolver, String key) {
+            StartupStats.noteSettingsRead();
+            final ArrayMap<String, String> values = mValues;
+            if (values != null && values.containsKey(key)) {
+                return values.get(key);
+            }
+            final int generation;
+            synchronized (this) {
+                generation = mGeneration;
+            }
+            StartupStats.noteBinderCall();
+            final String value = mSecure
+                    ? Settings.Secure.getStringForUser(resolver, key, mUserId)
+                    : Settings.System.getStringForUser(resolver, key, mUserId);
+            if (isTracked(key)) {
+                synchronized (this) {
+                    final ArrayMap<String, String> current = mValues;
+                    if (current != null && generation == mGeneration) {
+                        final ArrayMap<String, String> next = new ArrayMap<>(current);
+                        next.put(key, value);
+                        mValues = next;
+                    }
+                }
+            }
+            return value;
+        }
+
+        synchronized void invalidate(String key) {
+            // Untracked keys are never cached, their changes can't make a read stale
+            if (!isTracked(key)) {
+                return;
+            }
+            mGeneration++;
+            final ArrayMap<String, String> values = mValues;
+            if (values != null && values.containsKey(key)) {
+                final ArrayMap<String, String> next = new ArrayMap<>(values);
+                next.remove(key);
+                mValues = next;
+            }
+        }
+
+        private boolean isTracked(String key) {
+            for (String k : mKeys) {
+                if (k.equals(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
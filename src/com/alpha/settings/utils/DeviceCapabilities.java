@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.res.Resources;
+import android.hardware.display.DisplayManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Display;
+
+import com.android.internal.util.custom.cutout.CutoutUtils;
+import com.android.settings.custom.utils.TelephonyUtils;
+
+import java.util.ArrayList;
+
+/**
+ * Device properties the Alpha screens branch on, computed once per process (voice
+ * capability) or once per configuration (everything else).
+ *
+ * Reads are plain field loads from an immutable {@link State}. When a configuration change
+ * alters any value, registered callbacks are told on the main thread.
+ */
+public final class DeviceCapabilities {
+
+    public interface Callback {
+        void onCapabilitiesChanged(DeviceCapabilities capabilities);
+    }
+
+    private static final class State {
+        final boolean centeredCutout;
+        final boolean autoBrightnessAvailable;
+        final boolean networkTrafficOnStatusBarSupported;
+
+        State(Context context) {
+            final Resources res = context.getResources();
+            centeredCutout = CutoutUtils.hasCenteredCutout(context);
+            autoBrightnessAvailable = res.getBoolean(
+                    com.android.internal.R.bool.config_automatic_brightness_available);
+            networkTrafficOnStatusBarSupported = res.getBoolean(
+                    com.android.internal.R.bool.config_supportsNetworkTrafficOnStatusBar);
+        }
+
+        boolean sameAs(State other) {
+            return centeredCutout == other.centeredCutout
+                    && autoBrightnessAvailable == other.autoBrightnessAvailable
+                    && networkTrafficOnStatusBarSupported
+                            == other.networkTrafficOnStatusBarSupported;
+        }
+    }
+
+    private static DeviceCapabilities sInstance;
+
+    private final Context mContext;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final ArrayList<Callback> mCallbacks = new ArrayList<>();
+    private final boolean mVoiceCapable;
+    private volatile State mState;
+
+    private final BroadcastReceiver mConfigReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final State state = new State(mContext);
+            if (!state.sameAs(mState)) {
+                mState = state;
+                notifyCallbacks();
+            }
+        }
+    };
+
+    public static synchronized DeviceCapabilities get(Context context) {
+        if (sInstance == null) {
+            sInstance = new DeviceCapabilities(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private DeviceCapabilities(Context context) {
+        // Cutout checks need a context associated with a display
+        final Display display = context.getSystemService(DisplayManager.class)
+                .getDisplay(Display.DEFAULT_DISPLAY);
+        mContext = context.createDisplayContext(display);
+        StartupStats.noteBinderCall();
+        mVoiceCapable = TelephonyUtils.isVoiceCapable(context);
+        mState = new State(mContext);
+        context.registerReceiver(mConfigReceiver,
+                new IntentFilter(Intent.ACTION_CONFIGURATION_CHANGED), null, mMainHandler);
+    }
+
+    public boolean isVoiceCapable() {
+        return mVoiceCapable;
+    }
+
+    public boolean hasCenteredCutout() {
+        return mState.centeredCutout;
+    }
+
+    public boolean isAutoBrightnessAvailable() {
+        return mState.autoBrightnessAvailable;
+    }
+
+    public boolean isNetworkTrafficOnStatusBarSupported() {
+        return mState.networkTrafficOnStatusBarSupported;
+    }
+
+    public void addCallback(Callback callback) {
+        synchronized (mCallbacks) {
+            mCallbacks.add(callback);
+        }
+    }
+
+    public void removeCallback(Callback callback) {
+        synchronized (mCallbacks) {
+            mCallbacks.remove(callback);
+        }
+    }
+
+    private void notifyCallbacks() {
+        final Callback[] callbacks;
+        synchronized (mCallbacks) {
+            callbacks = mCallbacks.toArray(new Callback[0]);
+        }
+        for (Callback callback : callbacks) {
+            callback.onCapabilitiesChanged(this);
+        }
+    }
+}
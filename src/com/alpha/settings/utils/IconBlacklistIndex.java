@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import android.text.TextUtils;
+import android.util.ArraySet;
+
+/**
+ * Parsed form of the comma delimited Settings.Secure icon_blacklist value.
+ *
+ * The last parsed value is shared between all screens, so asking again for an unchanged
+ * string returns the same index without splitting it again.
+ */
+public final class IconBlacklistIndex {
+
+    public static final String ICON_BLACKLIST = "icon_blacklist";
+
+    private static final IconBlacklistIndex EMPTY = new IconBlacklistIndex(null, 0);
+
+    private static volatile IconBlacklistIndex sLast = EMPTY;
+
+    private final String mRaw;
+    private final int mHash;
+    private final ArraySet<String> mSlots = new ArraySet<>();
+
+    private IconBlacklistIndex(String raw, int hash) {
+        mRaw = raw;
+        mHash = hash;
+        if (!TextUtils.isEmpty(raw)) {
+            for (String slot : raw.split(",")) {
+                if (!slot.isEmpty()) {
+                    mSlots.add(slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index for the raw icon_blacklist value, which may be null.
+     */
+    public static IconBlacklistIndex of(String raw) {
+        final IconBlacklistIndex last = sLast;
+        if (last.mRaw == raw) {
+            return last;
+        }
+        if (raw == null) {
+            sLast = EMPTY;
+            return EMPTY;
+        }
+        final int hash = raw.hashCode();
+        if (last.mHash == hash && raw.equals(last.mRaw)) {
+            return last;
+        }
+        final IconBlacklistIndex index = new IconBlacklistIndex(raw, hash);
+        sLast = index;
+        return index;
+    }
+
+    /**
+     * Returns whether the status bar icon in {@code slot} is hidden.
+     */
+    public boolean isHidden(String slot) {
+        return mSlots.contains(slot);
+    }
+}
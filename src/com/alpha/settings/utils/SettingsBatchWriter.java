@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import android.app.ActivityManager;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.provider.Settings;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import java.util.Objects;
+
+/**
+ * Collects Settings.System/Secure writes and applies them together.
+ *
+ * Values that already match what is stored are dropped, so observers in SystemUI are only
+ * notified for keys that really change. The rest are written one by one through the
+ * Settings *ForUser calls, which go through SettingsProvider's call() and so reach the user
+ * they name.
+ *
+ * Everything is read and written for the current user, like the USER_CURRENT writers.
+ */
+public class SettingsBatchWriter {
+
+    private static final String TAG = "SettingsBatchWriter";
+
+    private final ArrayMap<String, String> mSystem = new ArrayMap<>();
+    private final ArrayMap<String, String> mSecure = new ArrayMap<>();
+
+    public SettingsBatchWriter putSystemInt(String key, int value) {
+        return putSystemString(key, Integer.toString(value));
+    }
+
+    public SettingsBatchWriter putSystemString(String key, String value) {
+        mSystem.put(key, value);
+        return this;
+    }
+
+    public SettingsBatchWriter putSecureInt(String key, int value) {
+        return putSecureString(key, Integer.toString(value));
+    }
+
+    public SettingsBatchWriter putSecureString(String key, String value) {
+        mSecure.put(key, value);
+        return this;
+    }
+
+    /**
+     * Writes every queued value that differs from the stored one.
+     *
+     * @return the number of settings that were changed
+     */
+    public int apply(Context context) {
+        final ContentResolver resolver = context.getContentResolver();
+        // Resolved once, so both namespaces go to the same user even across a switch
+        final int userId = ActivityManager.getCurrentUser();
+        final int changed = apply(resolver, mSystem, false, userId)
+                + apply(resolver, mSecure, true, userId);
+        mSystem.clear();
+        mSecure.clear();
+        return changed;
+    }
+
+    private static int apply(ContentResolver resolver, ArrayMap<String, String> values,
+            boolean secure, int userId) {
+        int changed = 0;
+        for (int i = 0; i < values.size(); i++) {
+            final String key = values.keyAt(i);
+            final String value = values.valueAt(i);
+            final String current = secure
+                    ? Settings.Secure.getStringForUser(resolver, key, userId)
+                    : Settings.System.getStringForUser(resolver, key, userId);
+            if (Objects.equals(current, value)) {
+                continue;
+            }
+            final boolean written = secure
+                    ? Settings.Secure.putStringForUser(resolver, key, value, userId)
+                    : Settings.System.putStringForUser(resolver, key, value, userId);
+            if (written) {
+                changed++;
+            } else {
+                Log.w(TAG, "Couldn't write " + key + " for user " + userId);
+            }
+        }
+        return changed;
+    }
+}
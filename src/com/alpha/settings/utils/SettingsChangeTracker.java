@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.Settings;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+
+/**
+ * Remembers which of a fixed set of settings changed since the last {@link #clearDirty()}.
+ *
+ * A screen registers the tracker for its whole lifetime and, on resume, only refreshes the
+ * preferences whose keys are dirty. Every key starts out dirty so the first resume binds
+ * everything. All callbacks are delivered on the main thread.
+ *
+ * A change drops the key from {@link AlphaSettingsSnapshot} before it is marked dirty, so a
+ * rebind that reads through the snapshot never sees the value from before the change.
+ */
+public class SettingsChangeTracker extends ContentObserver {
+
+    public interface Listener {
+        /**
+         * Called on the main thread after a tracked key was marked dirty.
+         */
+        void onSettingsChanged();
+    }
+
+    private final ContentResolver mResolver;
+    private final AlphaSettingsSnapshot mSnapshot;
+    private final ArrayMap<Uri, String> mKeys = new ArrayMap<>();
+    private final ArraySet<Uri> mSecureUris = new ArraySet<>();
+    private final ArraySet<String> mDirty = new ArraySet<>();
+    private Listener mListener;
+    private boolean mRegistered;
+
+    public SettingsChangeTracker(Context context) {
+        super(new Handler(Looper.getMainLooper()));
+        mResolver = context.getContentResolver();
+        mSnapshot = AlphaSettingsSnapshot.get(context);
+    }
+
+    public SettingsChangeTracker trackSystem(String key) {
+        return track(Settings.System.getUriFor(key), key);
+    }
+
+    public SettingsChangeTracker trackSecure(String key) {
+        final Uri uri = Settings.Secure.getUriFor(key);
+        mSecureUris.add(uri);
+        return track(uri, key);
+    }
+
+    public SettingsChangeTracker setListener(Listener listener) {
+        mListener = listener;
+        return this;
+    }
+
+    private SettingsChangeTracker track(Uri uri, String key) {
+        mKeys.put(uri, key);
+        mDirty.add(key);
+        if (mRegistered) {
+            mResolver.registerContentObserver(uri, false, this);
+        }
+        return this;
+    }
+
+    public void register() {
+        if (mRegistered) {
+            return;
+        }
+        mRegistered = true;
+        for (int i = 0; i < mKeys.size(); i++) {
+            mResolver.registerContentObserver(mKeys.keyAt(i), false, this);
+        }
+    }
+
+    public void unregister() {
+        if (mRegistered) {
+            mRegistered = false;
+            mResolver.unregisterContentObserver(this);
+        }
+    }
+
+    @Override
+    public void onChange(boolean selfChange, Uri uri) {
+        final String key = mKeys.get(uri);
+        if (key == null) {
+            return;
+        }
+        if (mSecureUris.contains(uri)) {
+            mSnapshot.invalidateSecure(key);
+        } else {
+            mSnapshot.invalidateSystem(key);
+        }
+        mDirty.add(key);
+        if (mListener != null) {
+            mListener.onSettingsChanged();
+        }
+    }
+
+    public boolean hasDirtyKeys() {
+        return !mDirty.isEmpty();
+    }
+
+    public boolean isDirty(String key) {
+        return mDirty.contains(key);
+    }
+
+    public void markDirty(String key) {
+        mDirty.add(key);
+    }
+
+    public void clearDirty() {
+        mDirty.clear();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import android.content.Context;
+import android.provider.Settings;
+
+/**
+ * Default values of the settings behind each Alpha screen, used to reset a whole category
+ * in one batch. Keep these in sync with the android:defaultValue of the preference xmls.
+ */
+public final class SettingsDefaults {
+
+    public static final int CATEGORY_CLOCK = 0;
+    public static final int CATEGORY_STATUS_BAR = 1;
+    public static final int CATEGORY_NETWORK_TRAFFIC = 2;
+    public static final int CATEGORY_QUICK_SETTINGS = 3;
+
+    private SettingsDefaults() {
+    }
+
+    /**
+     * Restores every setting of {@code category} to its default.
+     *
+     * @return the number of settings that were changed
+     */
+    public static int resetCategory(Context context, int category) {
+        final SettingsBatchWriter writer = new SettingsBatchWriter();
+        switch (category) {
+            case CATEGORY_CLOCK:
+                writer.putSystemInt(Settings.System.STATUS_BAR_CLOCK_AUTO_HIDE, 0)
+                        .putSystemInt(Settings.System.STATUS_BAR_CLOCK_AUTO_HIDE_HDURATION, 60)
+                        .putSystemInt(Settings.System.STATUS_BAR_CLOCK_AUTO_HIDE_SDURATION, 5)
+                        .putSystemInt(Settings.System.STATUS_BAR_CLOCK_DATE_DISPLAY, 0)
+                        .putSystemInt(Settings.System.STATUS_BAR_CLOCK_DATE_POSITION, 0)
+                        .putSystemInt(Settings.System.STATUS_BAR_CLOCK_DATE_STYLE, 0)
+                        .putSystemString(Settings.System.STATUS_BAR_CLOCK_DATE_FORMAT, "")
+                        .putSystemInt(Settings.System.STATUS_BAR_CLOCK_SECONDS, 0)
+                        .putSystemInt(Settings.System.STATUS_BAR_CLOCK_SIZE, 14)
+                        .putSystemInt(Settings.System.STATUS_BAR_AM_PM, 0);
+                break;
+            case CATEGORY_STATUS_BAR:
+                writer.putSystemInt(Settings.System.STATUS_BAR_CLOCK, 2)
+                        .putSystemInt("status_bar_battery_style", 0)
+                        .putSystemInt("status_bar_show_battery_percent", 0)
+                        .putSystemInt("show_fourg_icon", 0)
+                        .putSystemInt("use_old_mobiletype", 0)
+                        .putSystemInt("statusbar_colored_icons", 0)
+                        .putSystemInt("status_bar_brightness_control", 0);
+                break;
+            case CATEGORY_NETWORK_TRAFFIC:
+                writer.putSystemInt(Settings.System.NETWORK_TRAFFIC_LOCATION, 0)
+                        .putSystemInt(Settings.System.NETWORK_TRAFFIC_AUTOHIDE, 0)
+                        .putSystemInt(Settings.System.NETWORK_TRAFFIC_UNIT_TYPE, 0);
+                break;
+            case CATEGORY_QUICK_SETTINGS:
+                writer.putSystemInt("qs_quick_pulldown", 0)
+                        .putSecureInt("qs_show_brightness_slider", 1)
+                        .putSecureInt("qs_show_auto_brightness", 1)
+                        .putSecureInt("qs_brightness_slider_position", 0);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown category " + category);
+        }
+        return writer.apply(context);
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.UserHandle;
+import android.provider.Settings;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.preference.Preference;
+import androidx.preference.PreferenceDataStore;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Settings.System backed {@link PreferenceDataStore} that coalesces rapid writes.
+ *
+ * A seek bar can persist its value on every drag step, and every write wakes the SystemUI
+ * observers. Writes through this store are held per key for {@link #COALESCE_WINDOW_MS},
+ * then only the last value of each key is written on a background thread, keys in the order
+ * they were last written. Reads see pending values, and otherwise come from
+ * {@link AlphaSettingsSnapshot}. Owners must call {@link #flush()} from onPause.
+ *
+ * Direct writes that shouldn't wait for the window go through {@link #putStringNow}. Either
+ * way no provider call happens on the main thread, a write superseded by a newer value for
+ * the same key is skipped, and failed writes are reported to the
+ * {@link OnWriteFailedListener} on the main thread so the UI can be reconciled.
+ */
+public class SettingsWritePipeline extends PreferenceDataStore {
+
+    // A few frames; drag steps arrive about once per frame
+    private static final long COALESCE_WINDOW_MS = 100;
+
+    private static final String TAG = "SettingsWritePipeline";
+
+    private static final Executor sWriteExecutor = Executors.newSingleThreadExecutor();
+
+    private final ContentResolver mResolver;
+    private final AlphaSettingsSnapshot mSnapshot;
+    private final Executor mWriteExecutor;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    // In the order of each key's last write
+    private final LinkedHashMap<String, String> mPending = new LinkedHashMap<>();
+    // Handed to the executor but maybe not written yet, guarded by mPending
+    private final ArrayMap<String, String> mInFlight = new ArrayMap<>();
+    private final Runnable mFlushRunnable = this::flush;
+    private OnWriteFailedListener mOnWriteFailedListener;
+
+    public interface OnWriteFailedListener {
+        /**
+         * Called on the main thread when {@code key} couldn't be written. The provider still
+         * holds the previous value.
+         */
+        void onWriteFailed(String key);
+    }
+
+    public SettingsWritePipeline(Context context) {
+        this(context, sWriteExecutor);
+    }
+
+    @VisibleForTesting
+    SettingsWritePipeline(Context context, Executor writeExecutor) {
+        mResolver = context.getContentResolver();
+        mSnapshot = AlphaSettingsSnapshot.get(context);
+        mWriteExecutor = writeExecutor;
+    }
+
+    /**
+     * Routes the persisted value of each preference through this pipeline.
+     */
+    public void attach(Preference... preferences) {
+        for (Preference preference : preferences) {
+            if (preference != null) {
+                preference.setPreferenceDataStore(this);
+            }
+        }
+    }
+
+    public void setOnWriteFailedListener(OnWriteFailedListener listener) {
+        mOnWriteFailedListener = listener;
+    }
+
+    /**
+     * Queues {@code value} and starts writing right away instead of after the window.
+     */
+    public void putStringNow(String key, String value) {
+        queue(key, value);
+        flush();
+    }
+
+    public void putIntNow(String key, int value) {
+        putStringNow(key, Integer.toString(value));
+    }
+
+    @Override
+    public void putString(String key, String value) {
+        queue(key, value);
+        mHandler.removeCallbacks(mFlushRunnable);
+        mHandler.postDelayed(mFlushRunnable, COALESCE_WINDOW_MS);
+    }
+
+    private void queue(String key, String value) {
+        synchronized (mPending) {
+            // Moves the key to the end, so keys are written in the order of their last write
+            mPending.remove(key);
+            mPending.put(key, value);
+        }
+    }
+
+    @Override
+    public void putInt(String key, int value) {
+        putString(key, Integer.toString(value));
+    }
+
+    @Override
+    public void putBoolean(String key, boolean value) {
+        putInt(key, value ? 1 : 0);
+    }
+
+    @Override
+    public String getString(String key, String defValue) {
+        synchronized (mPending) {
+            if (mPending.containsKey(key)) {
+                return mPending.get(key);
+            }
+            if (mInFlight.containsKey(key)) {
+                return mInFlight.get(key);
+            }
+        }
+        final String value = mSnapshot.getSystemString(key);
+        return value != null ? value : defValue;
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+        try {
+            return Integer.parseInt(getString(key, Integer.toString(defValue)));
+        } catch (NumberFormatException e) {
+            return defValue;
+        }
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+        return getInt(key, defValue ? 1 : 0) != 0;
+    }
+
+    /**
+     * Writes out all pending values now, asynchronously.
+     */
+    public void flush() {
+        mHandler.removeCallbacks(mFlushRunnable);
+        final LinkedHashMap<String, String> pending;
+        synchronized (mPending) {
+            if (mPending.isEmpty()) {
+                return;
+            }
+            pending = new LinkedHashMap<>(mPending);
+            mInFlight.putAll(pending);
+            mPending.clear();
+        }
+        mWriteExecutor.execute(() -> {
+            for (Map.Entry<String, String> entry : pending.entrySet()) {
+                final String key = entry.getKey();
+                final String value = entry.getValue();
+                synchronized (mPending) {
+                    // Superseded by a later flush, whose task writes the newer value
+                    if (mInFlight.get(key) != value) {
+                        continue;
+                    }
+                }
+                boolean written;
+                try {
+                    written = Settings.System.putStringForUser(mResolver, key, value,
+                            UserHandle.USER_CURRENT);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Unable to write " + key, e);
+                    written = false;
+                }
+                if (written) {
+                    // Before the in-flight value goes, so no read falls back to a snapshot
+                    // value that predates this write
+                    mSnapshot.invalidateSystem(key);
+                }
+                synchronized (mPending) {
+                    if (mInFlight.get(key) == value) {
+                        mInFlight.remove(key);
+                    }
+                }
+                if (!written) {
+                    mHandler.post(() -> {
+                        if (mOnWriteFailedListener != null) {
+                            mOnWriteFailedListener.onWriteFailed(key);
+                        }
+                    });
+                }
+            }
+        });
+    }
+}
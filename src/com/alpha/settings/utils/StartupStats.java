@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import android.os.Looper;
+
+import java.io.PrintWriter;
+
+/**
+ * In-process ring buffer of Alpha screen open timings, filled by {@link StartupTracer}.
+ *
+ * The Alpha fragments print their own screen's records from dump(), and the dashboard prints
+ * all of them, so they show up in {@code adb shell dumpsys activity com.android.settings}.
+ * Comparable numbers across builds come from the JVM benchmarks in tests/benchmarks.
+ *
+ * Settings reads and binder calls are only counted on the main thread. Those are the ones an
+ * opening screen waits for, while background work such as prefetching runs concurrently with
+ * whichever screen is open and would be attributed to it at random.
+ */
+public final class StartupStats {
+
+    private static final int CAPACITY = 32;
+
+    // Main thread only
+    private static int sSettingsReads;
+    private static int sBinderCalls;
+
+    private static final Record[] sRecords = new Record[CAPACITY];
+    private static int sNext;
+    private static int sCount;
+
+    static final class Record {
+        final String screen;
+        final long inflateMicros;
+        final long resumeMicros;
+        final long firstFrameMicros;
+        final int settingsReads;
+        final int binderCalls;
+
+        Record(String screen, long inflateMicros, long resumeMicros, long firstFrameMicros,
+                int settingsReads, int binderCalls) {
+            this.screen = screen;
+            this.inflateMicros = inflateMicros;
+            this.resumeMicros = resumeMicros;
+            this.firstFrameMicros = firstFrameMicros;
+            this.settingsReads = settingsReads;
+            this.binderCalls = binderCalls;
+        }
+    }
+
+    private StartupStats() {
+    }
+
+    /** Counts a settings value lookup, if made on the main thread. */
+    public static void noteSettingsRead() {
+        if (Looper.getMainLooper().isCurrentThread()) {
+            sSettingsReads++;
+        }
+    }
+
+    /** Counts a binder transaction, if made on the main thread. */
+    public static void noteBinderCall() {
+        noteBinderCalls(1);
+    }
+
+    public static void noteBinderCalls(int count) {
+        if (Looper.getMainLooper().isCurrentThread()) {
+            sBinderCalls += count;
+        }
+    }
+
+    static int getSettingsReads() {
+        return sSettingsReads;
+    }
+
+    static int getBinderCalls() {
+        return sBinderCalls;
+    }
+
+    static synchronized void record(Record record) {
+        sRecords[sNext] = record;
+        sNext = (sNext + 1) % CAPACITY;
+        if (sCount < CAPACITY) {
+            sCount++;
+        }
+    }
+
+    /**
+     * Prints the records of {@code screen}, or of every screen if it is null.
+     */
+    public static synchronized void dump(String prefix, PrintWriter writer, String screen) {
+        writer.print(prefix);
+        writer.print("Alpha screen startup");
+        if (screen != null) {
+            writer.print(" of ");
+            writer.print(screen);
+        }
+        writer.println(" (oldest first):");
+        final int first = (sNext - sCount + CAPACITY) % CAPACITY;
+        for (int i = 0; i < sCount; i++) {
+            final Record r = sRecords[(first + i) % CAPACITY];
+            if (screen != null && !screen.equals(r.screen)) {
+                continue;
+            }
+            writer.print(prefix);
+            writer.print("  ");
+            writer.print(r.screen);
+            writer.print(": inflate=");
+            writer.print(r.inflateMicros);
+            writer.print("us resume=");
+            writer.print(r.resumeMicros);
+            writer.print("us firstFrame=");
+            writer.print(r.firstFrameMicros);
+            writer.print("us settingsReads=");
+            writer.print(r.settingsReads);
+            writer.print(" binderCalls=");
+            writer.println(r.binderCalls);
+        }
+    }
+}
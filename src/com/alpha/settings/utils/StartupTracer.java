@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import android.os.SystemClock;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.LifecycleObserver;
+
+import com.android.settingslib.core.lifecycle.Lifecycle;
+import com.android.settingslib.core.lifecycle.events.OnResume;
+
+/**
+ * Measures how long one Alpha screen takes to open and hands the result to
+ * {@link StartupStats}.
+ *
+ * Created at the top of the fragment's onCreate, told when the preference xml is inflated,
+ * and finished on the first pre-draw after the fragment resumed. Settings reads and binder
+ * calls are those the main thread made within that window.
+ */
+public class StartupTracer implements LifecycleObserver, OnResume {
+
+    private final Fragment mFragment;
+    private final long mStartNanos;
+    private final int mStartSettingsReads;
+    private final int mStartBinderCalls;
+
+    private long mInflateNanos;
+    private long mResumeNanos;
+    private boolean mDone;
+
+    private StartupTracer(Fragment fragment) {
+        mFragment = fragment;
+        mStartNanos = SystemClock.elapsedRealtimeNanos();
+        mStartSettingsReads = StartupStats.getSettingsReads();
+        mStartBinderCalls = StartupStats.getBinderCalls();
+    }
+
+    public static StartupTracer begin(Fragment fragment, Lifecycle lifecycle) {
+        final StartupTracer tracer = new StartupTracer(fragment);
+        lifecycle.addObserver(tracer);
+        return tracer;
+    }
+
+    /**
+     * Marks the end of the preference hierarchy inflation.
+     */
+    public void onInflated() {
+        mInflateNanos = SystemClock.elapsedRealtimeNanos() - mStartNanos;
+    }
+
+    @Override
+    public void onResume() {
+        final View view = mFragment.getView();
+        if (mDone || view == null) {
+            return;
+        }
+        if (mResumeNanos == 0) {
+            mResumeNanos = SystemClock.elapsedRealtimeNanos() - mStartNanos;
+        }
+        view.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                view.getViewTreeObserver().removeOnPreDrawListener(this);
+                finish();
+                return true;
+            }
+        });
+    }
+
+    private void finish() {
+        if (mDone) {
+            return;
+        }
+        mDone = true;
+        StartupStats.record(new StartupStats.Record(
+                mFragment.getClass().getSimpleName(),
+                mInflateNanos / 1000,
+                mResumeNanos / 1000,
+                (SystemClock.elapsedRealtimeNanos() - mStartNanos) / 1000,
+                StartupStats.getSettingsReads() - mStartSettingsReads,
+                StartupStats.getBinderCalls() - mStartBinderCalls));
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import android.net.TrafficStats;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Where {@link TrafficSampler} reads the total received and transmitted byte counters from.
+ *
+ * Implementations are called from the sampler thread only and don't allocate per read.
+ * {@link #close()} is called when the sampler stops, a later read may open it again.
+ */
+public interface TrafficCounterSource {
+
+    int RX = 0;
+    int TX = 1;
+
+    /**
+     * Stores the total received and transmitted bytes into {@code out[RX]} and
+     * {@code out[TX]}.
+     *
+     * @return false if the counters couldn't be read
+     */
+    boolean read(long[] out);
+
+    /**
+     * Releases whatever {@link #read(long[])} keeps open between reads.
+     */
+    default void close() {
+    }
+
+    static TrafficCounterSource trafficStats() {
+        return out -> {
+            final long rx = TrafficStats.getTotalRxBytes();
+            final long tx = TrafficStats.getTotalTxBytes();
+            if (rx == TrafficStats.UNSUPPORTED || tx == TrafficStats.UNSUPPORTED) {
+                return false;
+            }
+            out[RX] = rx;
+            out[TX] = tx;
+            return true;
+        };
+    }
+
+    /**
+     * Reads a file in the /proc/net/dev format, summing every interface but loopback. Any
+     * file in that format works, e.g. a recorded one. The file stays open between reads and
+     * is read again from the start each time.
+     */
+    static TrafficCounterSource procNetDev(File file) {
+        return new ProcNetDevSource(file);
+    }
+
+    /**
+     * Reads from the first of {@code sources} that succeeds on the first read, and from that
+     * one only afterwards. The sources count differently, e.g. with or without loopback, so
+     * switching between them mid-run would turn the difference into a bogus rate.
+     */
+    static TrafficCounterSource firstReadable(TrafficCounterSource... sources) {
+        return new FirstReadableSource(sources);
+    }
+
+    final class FirstReadableSource implements TrafficCounterSource {
+        private final TrafficCounterSource[] mSources;
+        private TrafficCounterSource mChosen;
+
+        private FirstReadableSource(TrafficCounterSource[] sources) {
+            mSources = sources;
+        }
+
+        @Override
+        public boolean read(long[] out) {
+            if (mChosen != null) {
+                return mChosen.read(out);
+            }
+            for (TrafficCounterSource source : mSources) {
+                if (source.read(out)) {
+                    mChosen = source;
+                    return true;
+                }
+                source.close();
+            }
+            return false;
+        }
+
+        @Override
+        public void close() {
+            if (mChosen != null) {
+                mChosen.close();
+            }
+        }
+    }
+
+    final class ProcNetDevSource implements TrafficCounterSource {
+        // Field indices after the "iface:" column
+        private static final int RX_BYTES_FIELD = 0;
+        private static final int TX_BYTES_FIELD = 8;
+
+        private final File mFile;
+        private RandomAccessFile mIn;
+        private byte[] mBuffer = new byte[4096];
+
+        private ProcNetDevSource(File file) {
+            mFile = file;
+        }
+
+        @Override
+        public boolean read(long[] out) {
+            final int length;
+            try {
+                if (mIn == null) {
+                    mIn = new RandomAccessFile(mFile, "r");
+                } else {
+                    mIn.seek(0);
+                }
+                length = fill(mIn);
+            } catch (IOException e) {
+                // Reopened on the next read, e.g. once the file exists again
+                close();
+                return false;
+            }
+            long rx = 0;
+            long tx = 0;
+            int pos = 0;
+            while (pos < length) {
+                int end = pos;
+                while (end < length && mBuffer[end] != '\n') {
+                    end++;
+                }
+                int colon = pos;
+                while (colon < end && mBuffer[colon] != ':') {
+                    colon++;
+                }
+                // The two header lines have no colon
+                if (colon < end && !isLoopback(pos, colon)) {
+                    rx += field(colon + 1, end, RX_BYTES_FIELD);
+                    tx += field(colon + 1, end, TX_BYTES_FIELD);
+                }
+                pos = end + 1;
+            }
+            out[RX] = rx;
+            out[TX] = tx;
+            return true;
+        }
+
+        @Override
+        public void close() {
+            if (mIn != null) {
+                try {
+                    mIn.close();
+                } catch (IOException e) {
+                    // Nothing left to release
+                }
+                mIn = null;
+            }
+        }
+
+        private int fill(RandomAccessFile in) throws IOException {
+            int length = 0;
+            int n;
+            while ((n = in.read(mBuffer, length, mBuffer.length - length)) > 0) {
+                length += n;
+                if (length == mBuffer.length) {
+                    // Only grows on devices with many interfaces, then stays
+                    final byte[] bigger = new byte[mBuffer.length * 2];
+                    System.arraycopy(mBuffer, 0, bigger, 0, length);
+                    mBuffer = bigger;
+                }
+            }
+            return length;
+        }
+
+        private boolean isLoopback(int start, int colon) {
+            while (start < colon && mBuffer[start] == ' ') {
+                start++;
+            }
+            return colon - start == 2 && mBuffer[start] == 'l' && mBuffer[start + 1] == 'o';
+        }
+
+        private long field(int start, int end, int index) {
+            int pos = start;
+            for (int i = 0; ; i++) {
+                while (pos < end && mBuffer[pos] == ' ') {
+                    pos++;
+                }
+                if (pos == end) {
+                    return 0;
+                }
+                if (i == index) {
+                    long value = 0;
+                    while (pos < end && mBuffer[pos] >= '0' && mBuffer[pos] <= '9') {
+                        value = value * 10 + (mBuffer[pos] - '0');
+                        pos++;
+                    }
+                    return value;
+                }
+                while (pos < end && mBuffer[pos] != ' ') {
+                    pos++;
+                }
+            }
+        }
+    }
+}
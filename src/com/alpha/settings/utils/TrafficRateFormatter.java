@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import android.provider.Settings;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Formats a throughput into a reusable char buffer, in the unit of
+ * {@link Settings.System#NETWORK_TRAFFIC_UNIT_TYPE}.
+ *
+ * Rates below ten units get one decimal, e.g. "4.2 MB/s", and larger ones are whole numbers.
+ * The unit suffixes are precomputed and the locale's digits and decimal separator are
+ * resolved once in {@link #setLocale}, so formatting a sample allocates nothing. Hand the
+ * result to TextView#setText(char[], int, int).
+ *
+ * Not thread safe, each owner keeps its own instance.
+ */
+public final class TrafficRateFormatter {
+
+    public static final int UNIT_BYTES = 0;
+    public static final int UNIT_BITS = 1;
+
+    // SI symbols, the same in every locale
+    private static final char[][] BYTE_SUFFIXES = suffixes("B/s", "kB/s", "MB/s", "GB/s");
+    private static final char[][] BIT_SUFFIXES = suffixes("bps", "kbps", "Mbps", "Gbps");
+
+    // Long.MAX_VALUE has 19 digits, plus separator, space and the longest suffix
+    private final char[] mBuffer = new char[32];
+    private Locale mLocale;
+    private char mZeroDigit;
+    private char mDecimalSeparator;
+    private int mLength;
+
+    public TrafficRateFormatter(Locale locale) {
+        setLocale(locale);
+    }
+
+    /**
+     * Resolves the symbols of {@code locale}. Cheap to call again with the same locale.
+     */
+    public void setLocale(Locale locale) {
+        if (locale.equals(mLocale)) {
+            return;
+        }
+        mLocale = locale;
+        final DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        mZeroDigit = symbols.getZeroDigit();
+        mDecimalSeparator = symbols.getDecimalSeparator();
+    }
+
+    private static char[][] suffixes(String... units) {
+        final char[][] suffixes = new char[units.length][];
+        for (int i = 0; i < units.length; i++) {
+            suffixes[i] = (" " + units[i]).toCharArray();
+        }
+        return suffixes;
+    }
+
+    /**
+     * Formats {@code bytesPerSec} into {@link #getBuffer()}.
+     *
+     * @param unitType {@link #UNIT_BYTES} or {@link #UNIT_BITS}
+     * @return the number of chars written
+     */
+    public int format(long bytesPerSec, int unitType) {
+        final boolean bits = unitType == UNIT_BITS;
+        final long step = bits ? 1000 : 1024;
+        final char[][] suffixes = bits ? BIT_SUFFIXES : BYTE_SUFFIXES;
+        long value = Math.max(0, bytesPerSec);
+        if (bits) {
+            value = value > Long.MAX_VALUE / 8 ? Long.MAX_VALUE : value * 8;
+        }
+
+        int tier = 0;
+        long divisor = 1;
+        while (tier < suffixes.length - 1 && value / divisor >= step) {
+            divisor *= step;
+            tier++;
+        }
+
+        mLength = 0;
+        final long whole = value / divisor;
+        if (tier > 0 && whole < 10) {
+            final long tenths = (value % divisor) * 10 / divisor;
+            appendDigits(whole);
+            mBuffer[mLength++] = mDecimalSeparator;
+            mBuffer[mLength++] = (char) (mZeroDigit + tenths);
+        } else {
+            appendDigits(whole);
+        }
+        final char[] suffix = suffixes[tier];
+        System.arraycopy(suffix, 0, mBuffer, mLength, suffix.length);
+        mLength += suffix.length;
+        return mLength;
+    }
+
+    public char[] getBuffer() {
+        return mBuffer;
+    }
+
+    /**
+     * Length of the last {@link #format} result.
+     */
+    public int length() {
+        return mLength;
+    }
+
+    private void appendDigits(long value) {
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        int pos = mLength + digits;
+        mLength = pos;
+        do {
+            mBuffer[--pos] = (char) (mZeroDigit + value % 10);
+            value /= 10;
+        } while (value > 0);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Samples network throughput every {@link #BASE_INTERVAL_MS}, doubling the interval while the
+ * link is idle, up to {@link #MAX_INTERVAL_MS}, and dropping to {@link #MIN_INTERVAL_MS} under
+ * load.
+ *
+ * Counters are read from a {@link TrafficCounterSource} on a shared background thread.
+ * Rates are delivered on the main thread. Steady-state sampling doesn't allocate.
+ */
+public final class TrafficSampler {
+
+    static final long BASE_INTERVAL_MS = 1000;
+    static final long MIN_INTERVAL_MS = 500;
+    static final long MAX_INTERVAL_MS = 8000;
+
+    // Both directions below this count as idle
+    private static final long IDLE_BYTES_PER_SEC = 1024;
+    // Either direction above this counts as busy
+    private static final long BUSY_BYTES_PER_SEC = 512 * 1024;
+
+    public interface Listener {
+        /**
+         * Called on the main thread with the rates since the previous sample.
+         */
+        void onSample(long rxBytesPerSec, long txBytesPerSec);
+    }
+
+    private static HandlerThread sThread;
+
+    private final TrafficCounterSource mSource;
+    private final Listener mListener;
+    private final Handler mHandler;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    // Sampler thread only
+    private final long[] mCounters = new long[2];
+    private long mLastRx;
+    private long mLastTx;
+    private long mLastTime;
+    private boolean mHasLast;
+    private boolean mRunning;
+    private long mIntervalMs = BASE_INTERVAL_MS;
+
+    // Handed from the sampler thread to mDeliverRunnable
+    private volatile long mRxRate;
+    private volatile long mTxRate;
+
+    private final Runnable mSampleRunnable = this::sample;
+    private final Runnable mDeliverRunnable = () -> mListener.onSample(mRxRate, mTxRate);
+
+    public TrafficSampler(TrafficCounterSource source, Listener listener) {
+        this(source, listener, getThread().getLooper());
+    }
+
+    @VisibleForTesting
+    TrafficSampler(TrafficCounterSource source, Listener listener, Looper looper) {
+        mSource = source;
+        mListener = listener;
+        mHandler = new Handler(looper);
+    }
+
+    private static synchronized HandlerThread getThread() {
+        if (sThread == null) {
+            sThread = new HandlerThread("AlphaTraffic", Process.THREAD_PRIORITY_BACKGROUND);
+            sThread.start();
+        }
+        return sThread;
+    }
+
+    public void start() {
+        mHandler.post(() -> {
+            if (mRunning) {
+                return;
+            }
+            mRunning = true;
+            mHasLast = false;
+            mIntervalMs = BASE_INTERVAL_MS;
+            sample();
+        });
+    }
+
+    public void stop() {
+        mHandler.post(() -> {
+            mRunning = false;
+            mHandler.removeCallbacks(mSampleRunnable);
+            mSource.close();
+        });
+        mMainHandler.removeCallbacks(mDeliverRunnable);
+    }
+
+    private void sample() {
+        if (!mRunning) {
+            return;
+        }
+        final long now = SystemClock.elapsedRealtime();
+        if (mSource.read(mCounters)) {
+            if (mHasLast && now > mLastTime) {
+                final long elapsed = now - mLastTime;
+                // Counters can reset when an interface goes away
+                mRxRate = Math.max(0, mCounters[TrafficCounterSource.RX] - mLastRx)
+                        * 1000 / elapsed;
+                mTxRate = Math.max(0, mCounters[TrafficCounterSource.TX] - mLastTx)
+                        * 1000 / elapsed;
+                mMainHandler.post(mDeliverRunnable);
+                mIntervalMs = nextInterval(Math.max(mRxRate, mTxRate));
+            }
+            mLastRx = mCounters[TrafficCounterSource.RX];
+            mLastTx = mCounters[TrafficCounterSource.TX];
+            mLastTime = now;
+            mHasLast = true;
+        } else {
+            // Nothing to read, e.g. no interfaces yet, so check back less often
+            mIntervalMs = Math.min(mIntervalMs * 2, MAX_INTERVAL_MS);
+        }
+        mHandler.postDelayed(mSampleRunnable, mIntervalMs);
+    }
+
+    private long nextInterval(long peakBytesPerSec) {
+        if (peakBytesPerSec < IDLE_BYTES_PER_SEC) {
+            return Math.min(mIntervalMs * 2, MAX_INTERVAL_MS);
+        }
+        if (peakBytesPerSec > BUSY_BYTES_PER_SEC) {
+            return MIN_INTERVAL_MS;
+        }
+        return BASE_INTERVAL_MS;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.custom.utils;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.telephony.CarrierConfigManager;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+
+import com.android.settingslib.utils.ThreadUtils;
+
+/**
+ * Immutable per-subscription view of the carrier state needed to label network modes.
+ *
+ * Snapshots are published through a copy-on-write {@link SparseArray} held in a volatile
+ * field, so readers never lock. {@link #prefetch} builds them on a background thread ahead
+ * of use, a {@link #get} that misses builds on the calling thread. Either way they are
+ * rebuilt in the background whenever the carrier config or SIM state changes.
+ */
+final class CarrierSnapshot {
+
+    private static final Object sLock = new Object();
+    private static volatile SparseArray<CarrierSnapshot> sSnapshots = new SparseArray<>();
+    // Guarded by sLock
+    private static final SparseBooleanArray sPending = new SparseBooleanArray();
+    private static Context sAppContext;
+
+    final int phoneType;
+    final boolean supportTdscdma;
+    final boolean globalCdma;
+    final boolean worldMode;
+
+    private CarrierSnapshot(int phoneType, boolean supportTdscdma, boolean globalCdma,
+            boolean worldMode) {
+        this.phoneType = phoneType;
+        this.supportTdscdma = supportTdscdma;
+        this.globalCdma = globalCdma;
+        this.worldMode = worldMode;
+    }
+
+    private static final BroadcastReceiver sReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final int subId = intent.getIntExtra(CarrierConfigManager.EXTRA_SUBSCRIPTION_INDEX,
+                    SubscriptionManager.INVALID_SUBSCRIPTION_ID);
+            if (CarrierConfigManager.ACTION_CARRIER_CONFIG_CHANGED.equals(intent.getAction())
+                    && SubscriptionManager.isValidSubscriptionId(subId)) {
+                refreshAsync(subId);
+            } else {
+                refreshAllAsync();
+            }
+        }
+    };
+
+    /**
+     * Returns the snapshot for {@code subId}, building it on the calling thread if neither
+     * {@link #prefetch} nor an earlier call did.
+     */
+    static CarrierSnapshot get(Context context, int subId) {
+        CarrierSnapshot snapshot = sSnapshots.get(subId);
+        if (snapshot == null) {
+            ensureRegistered(context);
+            snapshot = create(sAppContext, subId);
+            publish(subId, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Builds the snapshot for {@code subId} on a background thread, unless it is built or
+     * already queued.
+     */
+    static void prefetch(Context context, int subId) {
+        ensureRegistered(context);
+        synchronized (sLock) {
+            if (sSnapshots.get(subId) != null || sPending.get(subId)) {
+                return;
+            }
+            sPending.put(subId, true);
+        }
+        refreshAsync(subId);
+    }
+
+    private static void ensureRegistered(Context context) {
+        synchronized (sLock) {
+            if (sAppContext != null) {
+                return;
+            }
+            sAppContext = context.getApplicationContext();
+            final IntentFilter filter =
+                    new IntentFilter(CarrierConfigManager.ACTION_CARRIER_CONFIG_CHANGED);
+            filter.addAction(Intent.ACTION_SIM_STATE_CHANGED);
+            sAppContext.registerReceiver(sReceiver, filter);
+        }
+    }
+
+    private static void refreshAsync(int subId) {
+        ThreadUtils.postOnBackgroundThread(() -> publish(subId, create(sAppContext, subId)));
+    }
+
+    private static void refreshAllAsync() {
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final SparseArray<CarrierSnapshot> current = sSnapshots;
+            for (int i = 0; i < current.size(); i++) {
+                final int subId = current.keyAt(i);
+                publish(subId, create(sAppContext, subId));
+            }
+        });
+    }
+
+    private static void publish(int subId, CarrierSnapshot snapshot) {
+        synchronized (sLock) {
+            final SparseArray<CarrierSnapshot> next = sSnapshots.clone();
+            next.put(subId, snapshot);
+            sSnapshots = next;
+            sPending.delete(subId);
+        }
+    }
+
+    private static CarrierSnapshot create(Context context, int subId) {
+        final TelephonyManager tm = TelephonyManager.from(context);
+        return new CarrierSnapshot(
+                tm.getCurrentPhoneType(subId),
+                TelephonyUtils.isSupportTdscdma(context, subId),
+                TelephonyUtils.isGlobalCDMA(context, subId,
+                        TelephonyUtils.isLteOnCdma(context, subId)),
+                TelephonyUtils.isWorldMode(context));
+    }
+}
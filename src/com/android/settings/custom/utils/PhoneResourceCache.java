@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.custom.utils;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+import android.net.Uri;
+import android.util.ArrayMap;
+import android.util.Log;
+
+/**
+ * Process wide cache of the com.android.phone and com.android.systemui resources used by
+ * {@link TelephonyUtils}. Package contexts and resource identifiers are resolved once and
+ * dropped again when either package is replaced or the configuration/locale changes.
+ */
+final class PhoneResourceCache {
+
+    private static final String TAG = PhoneResourceCache.class.getSimpleName();
+
+    static final String PHONE_PACKAGE = "com.android.phone";
+    static final String SYSTEMUI_PACKAGE = "com.android.systemui";
+
+    private static PhoneResourceCache sInstance;
+
+    private final Context mContext;
+    private final ArrayMap<String, Integer> mPhoneIds = new ArrayMap<>();
+
+    private Resources mPhoneResources;
+    private boolean mPhoneResolved;
+    private Boolean mShow4GForLTE;
+    private String[] mStringNames;
+    private String[] mStrings;
+
+    private final BroadcastReceiver mConfigReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            invalidate();
+        }
+    };
+
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final Uri data = intent.getData();
+            final String pkg = data != null ? data.getSchemeSpecificPart() : null;
+            if (PHONE_PACKAGE.equals(pkg) || SYSTEMUI_PACKAGE.equals(pkg)) {
+                invalidate();
+            }
+        }
+    };
+
+    static synchronized PhoneResourceCache getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new PhoneResourceCache(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private PhoneResourceCache(Context context) {
+        mContext = context;
+
+        final IntentFilter configFilter = new IntentFilter(Intent.ACTION_CONFIGURATION_CHANGED);
+        configFilter.addAction(Intent.ACTION_LOCALE_CHANGED);
+        mContext.registerReceiver(mConfigReceiver, configFilter);
+
+        final IntentFilter packageFilter = new IntentFilter(Intent.ACTION_PACKAGE_REPLACED);
+        packageFilter.addDataScheme("package");
+        mContext.registerReceiver(mPackageReceiver, packageFilter);
+    }
+
+    /**
+     * Returns the resources of com.android.phone, or null if the package can't be found.
+     */
+    synchronized Resources getPhoneResources() {
+        if (!mPhoneResolved) {
+            mPhoneResolved = true;
+            try {
+                mPhoneResources = mContext.createPackageContext(PHONE_PACKAGE, 0).getResources();
+            } catch (PackageManager.NameNotFoundException e) {
+                Log.w(TAG, "couldn't locate resources for " + PHONE_PACKAGE, e);
+                mPhoneResources = null;
+            }
+        }
+        return mPhoneResources;
+    }
+
+    /**
+     * Returns the identifier of a com.android.phone resource, or 0 if it doesn't exist.
+     */
+    synchronized int getPhoneIdentifier(String name, String type) {
+        final String key = type + "/" + name;
+        Integer id = mPhoneIds.get(key);
+        if (id == null) {
+            final Resources res = getPhoneResources();
+            id = res != null ? res.getIdentifier(name, type, PHONE_PACKAGE) : 0;
+            mPhoneIds.put(key, id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the com.android.phone strings named by {@code names}, resolved once for the
+     * current configuration. Missing strings are null. The returned array is shared and must
+     * not be modified; {@code names} must be a constant array.
+     */
+    synchronized String[] getPhoneStrings(String[] names) {
+        if (mStrings == null || mStringNames != names) {
+            final String[] strings = new String[names.length];
+            final Resources res = getPhoneResources();
+            if (res != null) {
+                for (int i = 0; i < names.length; i++) {
+                    final int id = getPhoneIdentifier(names[i], "string");
+                    if (id > 0) {
+                        strings[i] = res.getString(id);
+                    }
+                }
+            }
+            mStringNames = names;
+            mStrings = strings;
+        }
+        return mStrings;
+    }
+
+    synchronized boolean show4GForLTE() {
+        if (mShow4GForLTE == null) {
+            boolean show = false;
+            try {
+                final Resources res = mContext.createPackageContext(SYSTEMUI_PACKAGE, 0)
+                        .getResources();
+                final int id = res.getIdentifier("config_show4GForLTE", "bool",
+                        SYSTEMUI_PACKAGE);
+                show = id > 0 && res.getBoolean(id);
+            } catch (PackageManager.NameNotFoundException e) {
+                Log.w(TAG, "couldn't locate resources for " + SYSTEMUI_PACKAGE);
+            }
+            mShow4GForLTE = show;
+        }
+        return mShow4GForLTE;
+    }
+
+    synchronized void invalidate() {
+        mPhoneResources = null;
+        mPhoneResolved = false;
+        mShow4GForLTE = null;
+        mStringNames = null;
+        mStrings = null;
+        mPhoneIds.clear();
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2016-2018 riceDroid Android Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.custom.utils;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.os.PersistableBundle;
+import android.telephony.CarrierConfigManager;
+import android.telephony.TelephonyManager;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.internal.telephony.PhoneConstants;
+import com.android.internal.telephony.RILConstants;
+
+/**
+ * Helper class which has the same logic as MobileNetworkSettings to display the same
+ * network modes and strings as it does.
+ */
+public class TelephonyUtils {
+
+    private static final String TAG = TelephonyUtils.class.getSimpleName();
+
+    // Network mode classes, the values of MODE_CLASSES
+    private static final byte CLASS_UNKNOWN = 0;
+    private static final byte CLASS_3G = 1;
+    private static final byte CLASS_2G = 2;
+    private static final byte CLASS_LTE = 3;
+    private static final byte CLASS_1X = 4;
+    private static final byte CLASS_TDSCDMA = 5;
+    private static final byte CLASS_LTE_TDSCDMA = 6;
+
+    // Indices into NETWORK_LABEL_NAMES
+    private static final int LABEL_3G = 0;
+    private static final int LABEL_2G = 1;
+    private static final int LABEL_4G = 2;
+    private static final int LABEL_LTE = 3;
+    private static final int LABEL_1X = 4;
+    private static final int LABEL_TDSCDMA = 5;
+    private static final int LABEL_GLOBAL = 6;
+
+    @VisibleForTesting
+    static final String[] NETWORK_LABEL_NAMES = {
+        "network_3G",
+        "network_2G",
+        "network_4G",
+        "network_lte",
+        "network_1x",
+        "network_tdscdma",
+        "network_global",
+    };
+
+    /** RIL network mode -> CLASS_*, replacing a switch plus getIdentifier() per lookup. */
+    private static final byte[] MODE_CLASSES = new byte[64];
+
+    static {
+        setModeClass(CLASS_3G,
+                RILConstants.NETWORK_MODE_TDSCDMA_WCDMA,
+                RILConstants.NETWORK_MODE_TDSCDMA_GSM_WCDMA,
+                RILConstants.NETWORK_MODE_TDSCDMA_GSM,
+                RILConstants.NETWORK_MODE_WCDMA_ONLY,
+                RILConstants.NETWORK_MODE_GSM_UMTS,
+                RILConstants.NETWORK_MODE_WCDMA_PREF,
+                RILConstants.NETWORK_MODE_TDSCDMA_CDMA_EVDO_GSM_WCDMA,
+                RILConstants.NETWORK_MODE_CDMA,
+                RILConstants.NETWORK_MODE_EVDO_NO_CDMA,
+                RILConstants.NETWORK_MODE_GLOBAL);
+        setModeClass(CLASS_2G,
+                RILConstants.NETWORK_MODE_GSM_ONLY);
+        setModeClass(CLASS_LTE,
+                RILConstants.NETWORK_MODE_LTE_GSM_WCDMA,
+                RILConstants.NETWORK_MODE_LTE_WCDMA,
+                RILConstants.NETWORK_MODE_LTE_ONLY,
+                RILConstants.NETWORK_MODE_LTE_CDMA_EVDO);
+        setModeClass(CLASS_1X,
+                RILConstants.NETWORK_MODE_CDMA_NO_EVDO);
+        setModeClass(CLASS_TDSCDMA,
+                RILConstants.NETWORK_MODE_TDSCDMA_ONLY);
+        setModeClass(CLASS_LTE_TDSCDMA,
+                RILConstants.NETWORK_MODE_LTE_TDSCDMA_GSM,
+                RILConstants.NETWORK_MODE_LTE_TDSCDMA_GSM_WCDMA,
+                RILConstants.NETWORK_MODE_LTE_TDSCDMA,
+                RILConstants.NETWORK_MODE_LTE_TDSCDMA_WCDMA,
+                RILConstants.NETWORK_MODE_LTE_TDSCDMA_CDMA_EVDO_GSM_WCDMA,
+                RILConstants.NETWORK_MODE_LTE_CDMA_EVDO_GSM_WCDMA);
+    }
+
+    private static void setModeClass(byte modeClass, int... modes) {
+        for (int mode : modes) {
+            MODE_CLASSES[mode] = modeClass;
+        }
+    }
+
+    /**
+     * Returns whether the device is voice-capable (meaning, it is also a phone).
+     */
+    public static boolean isVoiceCapable(Context context) {
+        TelephonyManager telephony =
+                (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+        return telephony != null && telephony.isVoiceCapable();
+    }
+
+    public static String getNetworkModeString(Context context, int networkMode, int subId) {
+        final CarrierSnapshot carrier = CarrierSnapshot.get(context, subId);
+        return getNetworkModeString(context,
+                networkMode,
+                carrier.phoneType /* phone type */,
+                show4GForLTE(context)/* show 4G for lte */,
+                carrier.supportTdscdma/* supports TDS CDMA*/,
+                carrier.globalCdma/* is Global cdma */,
+                carrier.worldMode/* is worldwide */);
+    }
+
+    /**
+     * Loads the carrier state of {@code subId} in the background, so that a later
+     * {@link #getNetworkModeString(Context, int, int)} doesn't query telephony itself.
+     */
+    public static void prefetchCarrierState(Context context, int subId) {
+        CarrierSnapshot.prefetch(context, subId);
+    }
+
+    public static String getNetworkModeString(Context context, int networkMode,
+            int phoneType, boolean show4GForLTE, boolean isSupportTdsCdma, boolean isGlobalCdma,
+            boolean isWorldMode) {
+        final int label = getNetworkModeLabel(networkMode, phoneType, show4GForLTE,
+                isSupportTdsCdma, isGlobalCdma, isWorldMode);
+        if (label < 0) {
+            Log.w(TAG, "unknown phone mode: " + networkMode);
+            return null;
+        }
+
+        final String r = PhoneResourceCache.getInstance(context)
+                .getPhoneStrings(NETWORK_LABEL_NAMES)[label];
+        if (r == null) {
+            Log.w(TAG, "couldn't find resource with name: " + NETWORK_LABEL_NAMES[label]);
+        }
+        return r;
+    }
+
+    /**
+     * Maps a RIL network mode to an index into {@link #NETWORK_LABEL_NAMES}, or -1 if the
+     * mode is unknown.
+     */
+    static int getNetworkModeLabel(int networkMode, int phoneType, boolean show4GForLTE,
+            boolean isSupportTdsCdma, boolean isGlobalCdma, boolean isWorldMode) {
+        final int modeClass = networkMode >= 0 && networkMode < MODE_CLASSES.length
+                ? MODE_CLASSES[networkMode] : CLASS_UNKNOWN;
+        switch (modeClass) {
+            case CLASS_3G:
+                return LABEL_3G;
+            case CLASS_2G:
+                return LABEL_2G;
+            case CLASS_LTE:
+                return show4GForLTE ? LABEL_4G : LABEL_LTE;
+            case CLASS_1X:
+                return LABEL_1X;
+            case CLASS_TDSCDMA:
+                return LABEL_TDSCDMA;
+            case CLASS_LTE_TDSCDMA:
+                if (isSupportTdsCdma) {
+                    return LABEL_LTE;
+                }
+                if (phoneType == RILConstants.CDMA_PHONE || isGlobalCdma || isWorldMode) {
+                    return LABEL_GLOBAL;
+                }
+                return show4GForLTE ? LABEL_4G : LABEL_LTE;
+            default:
+                return -1;
+        }
+    }
+
+    static boolean isSupportTdscdma(Context context, int subId) {
+        final PhoneResourceCache cache = PhoneResourceCache.getInstance(context);
+        final Resources phoneResources = cache.getPhoneResources();
+        if (phoneResources != null) {
+            int id = cache.getPhoneIdentifier("config_support_tdscdma", "bool");
+            if (id > 0 && phoneResources.getBoolean(id)) {
+                return true;
+            }
+
+            final String operatorNumeric = TelephonyManager.from(context)
+                    .getSimOperatorNumeric(subId);
+
+            int tdcdmaArrId = cache.getPhoneIdentifier(
+                    "config_support_tdscdma_roaming_on_networks", "string-array");
+
+            if (tdcdmaArrId > 0) {
+                String[] numericArray = phoneResources.getStringArray(tdcdmaArrId);
+                if (numericArray.length == 0 || operatorNumeric == null) {
+                    return false;
+                }
+                for (String numeric : numericArray) {
+                    if (operatorNumeric.equals(numeric)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean show4GForLTE(Context context) {
+        return PhoneResourceCache.getInstance(context).show4GForLTE();
+    }
+
+    static boolean isGlobalCDMA(Context context, int subId, boolean isLteOnCdma) {
+        final CarrierConfigManager carrierConfigMan = (CarrierConfigManager)
+                context.getSystemService(Context.CARRIER_CONFIG_SERVICE);
+        final PersistableBundle carrierConfig = carrierConfigMan.getConfigForSubId(subId);
+        return isLteOnCdma && carrierConfig != null
+                && carrierConfig.getBoolean(CarrierConfigManager.KEY_SHOW_CDMA_CHOICES_BOOL);
+    }
+
+    static boolean isLteOnCdma(Context context, int subId) {
+        return TelephonyManager.from(context).getLteOnCdmaMode(subId)
+                == PhoneConstants.LTE_ON_CDMA_TRUE;
+    }
+
+    static boolean isWorldMode(Context context) {
+        boolean worldModeOn = false;
+        final TelephonyManager tm = (TelephonyManager)
+                context.getSystemService(Context.TELEPHONY_SERVICE);
+
+        final PhoneResourceCache cache = PhoneResourceCache.getInstance(context);
+        final Resources phoneResources = cache.getPhoneResources();
+        if (phoneResources != null) {
+            int id = cache.getPhoneIdentifier("config_world_mode", "string");
+
+            if (id > 0) {
+                final String configString = phoneResources.getString(id);
+
+                if (!TextUtils.isEmpty(configString)) {
+                    String[] configArray = configString.split(";");
+                    // Check if we have World mode configuration set to True only or config is set to True
+                    // and SIM GID value is also set and matches to the current SIM GID.
+                    if (configArray != null &&
+                            ((configArray.length == 1 && configArray[0].equalsIgnoreCase("true")) ||
+                                    (configArray.length == 2 && !TextUtils.isEmpty(configArray[1]) &&
+                                            tm != null && configArray[1].equalsIgnoreCase(tm.getGroupIdLevel1())))) {
+                        worldModeOn = true;
+                    }
+                }
+            } else {
+                Log.w(TAG, "couldn't find resource of config_world_mode");
+            }
+        }
+
+        return worldModeOn;
+    }
+}
@@ -0,0 +1,46 @@
+#############################################################
+# Alpha Settings fragment open benchmarks, run on the JVM   #
+# under Robolectric.                                        #
+#############################################################
+LOCAL_PATH := $(call my-dir)
+
+include $(CLEAR_VARS)
+
+LOCAL_MODULE := AlphaSettingsBenchmarks
+LOCAL_MODULE_TAGS := optional
+
+LOCAL_SRC_FILES := $(call all-java-files-under, src)
+
+LOCAL_JAVA_RESOURCE_DIRS := config
+
+LOCAL_JAVA_LIBRARIES := \
+    robolectric_android-all-stub \
+    Robolectric_all-target \
+    Robolectric_shadows_androidx_fragment_upstream \
+    truth-prebuilt
+
+LOCAL_INSTRUMENTATION_FOR := Settings
+
+include $(BUILD_STATIC_JAVA_LIBRARY)
+
+#############################################################
+# Runner target, prints one JSON array per run. Set the     #
+# alpha.benchmark.json system property to also write it to  #
+# a file.                                                   #
+#############################################################
+include $(CLEAR_VARS)
+
+LOCAL_MODULE := RunAlphaSettingsBenchmarks
+
+LOCAL_JAVA_LIBRARIES := \
+    AlphaSettingsBenchmarks \
+    robolectric_android-all-stub \
+    Robolectric_all-target \
+    Robolectric_shadows_androidx_fragment_upstream \
+    truth-prebuilt
+
+LOCAL_TEST_PACKAGE := Settings
+
+LOCAL_ROBOTEST_FILES := $(call find-files-in-subdirs,$(LOCAL_PATH)/src,*Benchmark.java,.)
+
+include external/robolectric-shadows/run_robotests.mk
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.benchmark;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.os.Looper;
+import android.provider.Settings;
+import android.util.ArrayMap;
+
+/**
+ * In-memory stand-in for SettingsProvider that counts the calls made on the main thread.
+ *
+ * Serves both the provider queries the snapshot makes and, through {@link ShadowFakeSettings},
+ * the Settings.System/Secure getters and setters. Only main thread calls are counted, the
+ * same ones the on-device StartupStats counts.
+ */
+public class FakeSettingsProvider extends ContentProvider {
+
+    private static final String TABLE_SYSTEM = "system";
+    private static final String TABLE_SECURE = "secure";
+
+    private static final ArrayMap<String, String> sSystem = new ArrayMap<>();
+    private static final ArrayMap<String, String> sSecure = new ArrayMap<>();
+    private static int sMainThreadCalls;
+
+    static synchronized String get(boolean secure, String name) {
+        noteCall();
+        return (secure ? sSecure : sSystem).get(name);
+    }
+
+    static synchronized boolean put(boolean secure, String name, String value) {
+        noteCall();
+        (secure ? sSecure : sSystem).put(name, value);
+        return true;
+    }
+
+    static synchronized int getMainThreadCalls() {
+        return sMainThreadCalls;
+    }
+
+    static synchronized void reset() {
+        sSystem.clear();
+        sSecure.clear();
+        sMainThreadCalls = 0;
+    }
+
+    private static void noteCall() {
+        if (Looper.getMainLooper().isCurrentThread()) {
+            sMainThreadCalls++;
+        }
+    }
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    @Override
+    public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs,
+            String sortOrder) {
+        final MatrixCursor cursor = new MatrixCursor(new String[] {
+                Settings.NameValueTable.NAME, Settings.NameValueTable.VALUE});
+        synchronized (FakeSettingsProvider.class) {
+            noteCall();
+            final ArrayMap<String, String> table = isSecure(uri) ? sSecure : sSystem;
+            for (int i = 0; i < table.size(); i++) {
+                cursor.addRow(new Object[] {table.keyAt(i), table.valueAt(i)});
+            }
+        }
+        return cursor;
+    }
+
+    @Override
+    public Uri insert(Uri uri, ContentValues values) {
+        final String name = values.getAsString(Settings.NameValueTable.NAME);
+        put(isSecure(uri), name, values.getAsString(Settings.NameValueTable.VALUE));
+        return Uri.withAppendedPath(uri, name);
+    }
+
+    @Override
+    public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+        return 0;
+    }
+
+    @Override
+    public int delete(Uri uri, String selection, String[] selectionArgs) {
+        return 0;
+    }
+
+    @Override
+    public String getType(Uri uri) {
+        return null;
+    }
+
+    private static boolean isSecure(Uri uri) {
+        return TABLE_SECURE.equals(uri.getPathSegments().get(0));
+    }
+}
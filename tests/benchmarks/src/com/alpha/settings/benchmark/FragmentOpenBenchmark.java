@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.benchmark;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.provider.Settings;
+import android.telephony.TelephonyManager;
+import android.util.JsonWriter;
+
+import androidx.fragment.app.Fragment;
+
+import com.alpha.settings.fragments.GestureSettings;
+import com.alpha.settings.fragments.LockScreenSettings;
+import com.alpha.settings.fragments.MiscSettings;
+import com.alpha.settings.fragments.NotificationSettings;
+import com.alpha.settings.fragments.QuickSettings;
+import com.alpha.settings.fragments.StatusBarSettings;
+import com.alpha.settings.fragments.statusbar.Clock;
+import com.alpha.settings.fragments.statusbar.NetworkTrafficSettings;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.androidx.fragment.FragmentController;
+
+import java.io.FileWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Opens every fragment of com.alpha.settings.fragments on the JVM and reports, per fragment,
+ * the onCreate to onResume latency, the bytes allocated on the main thread and the settings
+ * provider calls made on the main thread, as a JSON array.
+ *
+ * The first open of each fragment is reported on its own as the cold open, it pays for class
+ * loading and fills the process wide caches. The warm numbers are medians over
+ * {@link #RUNS} further opens. Compare runs of the same machine only.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = {ShadowFakeSettings.ShadowSystem.class, ShadowFakeSettings.ShadowSecure.class})
+public class FragmentOpenBenchmark {
+
+    /** System property naming a file the JSON is also written to. */
+    private static final String OUTPUT_PROPERTY = "alpha.benchmark.json";
+
+    private static final int WARMUPS = 3;
+    private static final int RUNS = 15;
+
+    private static final Class<?>[] FRAGMENTS = {
+        GestureSettings.class,
+        LockScreenSettings.class,
+        MiscSettings.class,
+        NotificationSettings.class,
+        QuickSettings.class,
+        StatusBarSettings.class,
+        Clock.class,
+        NetworkTrafficSettings.class,
+    };
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final class Sample {
+        long mLatencyMicros;
+        long mAllocatedBytes;
+        int mProviderCalls;
+    }
+
+    @Before
+    public void setUp() {
+        final Context context = RuntimeEnvironment.application;
+        FakeSettingsProvider.reset();
+        // The snapshot queries with and without the user id in the authority
+        Robolectric.setupContentProvider(FakeSettingsProvider.class, Settings.AUTHORITY);
+        Robolectric.setupContentProvider(FakeSettingsProvider.class, "0@" + Settings.AUTHORITY);
+        // A phone, so the telephony dependent preferences are built too
+        shadowOf(context.getSystemService(TelephonyManager.class)).setVoiceCapable(true);
+    }
+
+    @Test
+    public void openEveryFragment() throws Exception {
+        final StringWriter out = new StringWriter();
+        final JsonWriter json = new JsonWriter(out);
+        json.setIndent("  ");
+        json.beginArray();
+        for (Class<?> fragmentClass : FRAGMENTS) {
+            final Sample cold = open(fragmentClass);
+            for (int i = 0; i < WARMUPS; i++) {
+                open(fragmentClass);
+            }
+            final Sample[] warm = new Sample[RUNS];
+            for (int i = 0; i < RUNS; i++) {
+                warm[i] = open(fragmentClass);
+            }
+
+            json.beginObject();
+            json.name("fragment").value(fragmentClass.getName());
+            json.name("coldLatencyMicros").value(cold.mLatencyMicros);
+            json.name("coldAllocatedBytes").value(cold.mAllocatedBytes);
+            json.name("coldProviderCalls").value(cold.mProviderCalls);
+            json.name("latencyMicros").value(median(warm, s -> s.mLatencyMicros));
+            json.name("allocatedBytes").value(median(warm, s -> s.mAllocatedBytes));
+            json.name("providerCalls").value(median(warm, s -> s.mProviderCalls));
+            json.endObject();
+        }
+        json.endArray();
+        json.flush();
+
+        final String result = out.toString();
+        System.out.println(result);
+        final String output = System.getProperty(OUTPUT_PROPERTY);
+        if (output != null) {
+            try (Writer writer = new FileWriter(output)) {
+                writer.write(result);
+            }
+        }
+        assertThat(result).contains(NetworkTrafficSettings.class.getName());
+    }
+
+    private static Sample open(Class<?> fragmentClass) throws ReflectiveOperationException {
+        final Fragment fragment =
+                (Fragment) fragmentClass.getDeclaredConstructor().newInstance();
+        final long threadId = Thread.currentThread().getId();
+        final Sample sample = new Sample();
+
+        final int calls = FakeSettingsProvider.getMainThreadCalls();
+        final long allocated = THREADS.getThreadAllocatedBytes(threadId);
+        final long start = System.nanoTime();
+        final FragmentController<Fragment> controller =
+                FragmentController.of(fragment).create().start().resume();
+        sample.mLatencyMicros = (System.nanoTime() - start) / 1000;
+        sample.mAllocatedBytes = THREADS.getThreadAllocatedBytes(threadId) - allocated;
+        sample.mProviderCalls = FakeSettingsProvider.getMainThreadCalls() - calls;
+
+        controller.pause().stop().destroy();
+        return sample;
+    }
+
+    private interface Metric {
+        long of(Sample sample);
+    }
+
+    private static long median(Sample[] samples, Metric metric) {
+        final long[] values = new long[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            values[i] = metric.of(samples[i]);
+        }
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+}
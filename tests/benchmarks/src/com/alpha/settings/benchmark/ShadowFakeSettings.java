@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.benchmark;
+
+import android.content.ContentResolver;
+import android.provider.Settings;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+
+/**
+ * Routes the Settings.System/Secure accessors to {@link FakeSettingsProvider}, so that every
+ * settings lookup a fragment makes is counted no matter which API it uses.
+ */
+public final class ShadowFakeSettings {
+
+    private ShadowFakeSettings() {
+    }
+
+    @Implements(Settings.System.class)
+    public static class ShadowSystem {
+        @Implementation
+        protected static String getStringForUser(ContentResolver resolver, String name,
+                int userHandle) {
+            return FakeSettingsProvider.get(false, name);
+        }
+
+        @Implementation
+        protected static boolean putStringForUser(ContentResolver resolver, String name,
+                String value, int userHandle) {
+            return FakeSettingsProvider.put(false, name, value);
+        }
+    }
+
+    @Implements(Settings.Secure.class)
+    public static class ShadowSecure {
+        @Implementation
+        protected static String getStringForUser(ContentResolver resolver, String name,
+                int userHandle) {
+            return FakeSettingsProvider.get(true, name);
+        }
+
+        @Implementation
+        protected static boolean putStringForUser(ContentResolver resolver, String name,
+                String value, int userHandle) {
+            return FakeSettingsProvider.put(true, name, value);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.fragments.statusbar;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.settings.R;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class ClockDateFormatValidatorTest {
+
+    @Test
+    public void validate_plainPattern_isValidWithPreview() {
+        final ClockDateFormatValidator.Result result =
+                ClockDateFormatValidator.validate("EEE, d MMM");
+
+        assertThat(result.valid).isTrue();
+        assertThat(result.preview).isNotNull();
+    }
+
+    @Test
+    public void validate_empty_isRejected() {
+        assertThat(ClockDateFormatValidator.validate("").errorRes)
+                .isEqualTo(R.string.status_bar_date_format_empty);
+    }
+
+    @Test
+    public void validate_tooLong_isRejected() {
+        final StringBuilder pattern = new StringBuilder();
+        while (pattern.length() <= ClockDateFormatValidator.MAX_LENGTH) {
+            pattern.append('d');
+        }
+
+        assertThat(ClockDateFormatValidator.validate(pattern.toString()).errorRes)
+                .isEqualTo(R.string.status_bar_date_format_too_long);
+    }
+
+    @Test
+    public void validate_tooManyFields_isRejected() {
+        assertThat(ClockDateFormatValidator.validate("y M d E H m s S a").errorRes)
+                .isEqualTo(R.string.status_bar_date_format_too_many_fields);
+    }
+
+    @Test
+    public void validate_unknownLetter_isRejected() {
+        assertThat(ClockDateFormatValidator.validate("dd qq").errorRes)
+                .isEqualTo(R.string.status_bar_date_format_invalid);
+    }
+
+    @Test
+    public void countFields_skipsQuotedTextAndRepeats() {
+        assertThat(ClockDateFormatValidator.countFields("EEE, d MMM")).isEqualTo(3);
+        assertThat(ClockDateFormatValidator.countFields("'week' w 'of' yyyy")).isEqualTo(2);
+        assertThat(ClockDateFormatValidator.countFields("HH:mm")).isEqualTo(2);
+    }
+}
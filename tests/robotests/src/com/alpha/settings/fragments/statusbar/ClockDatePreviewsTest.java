@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.fragments.statusbar;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.res.Configuration;
+
+import com.alpha.settings.testutils.AllocationCounter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Locale;
+
+@RunWith(RobolectricTestRunner.class)
+public class ClockDatePreviewsTest {
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        ClockDatePreviews.invalidate();
+    }
+
+    @Test
+    public void getEntries_sameDayAndLocale_returnsCachedArray() {
+        final CharSequence[] first =
+                ClockDatePreviews.getEntries(mContext, ClockDatePreviews.STYLE_NORMAL);
+
+        assertThat(ClockDatePreviews.getEntries(mContext, ClockDatePreviews.STYLE_NORMAL))
+                .isSameInstanceAs(first);
+    }
+
+    @Test
+    public void getEntries_styles_matchNormalEntries() {
+        final CharSequence[] normal =
+                ClockDatePreviews.getEntries(mContext, ClockDatePreviews.STYLE_NORMAL);
+        final CharSequence[] lower =
+                ClockDatePreviews.getEntries(mContext, ClockDatePreviews.STYLE_LOWERCASE);
+        final CharSequence[] upper =
+                ClockDatePreviews.getEntries(mContext, ClockDatePreviews.STYLE_UPPERCASE);
+
+        assertThat(lower).hasLength(normal.length);
+        assertThat(upper).hasLength(normal.length);
+        // The last entry is the "custom" label and keeps its case
+        for (int i = 0; i < normal.length - 1; i++) {
+            assertThat(lower[i].toString()).isEqualTo(normal[i].toString().toLowerCase());
+            assertThat(upper[i].toString()).isEqualTo(normal[i].toString().toUpperCase());
+        }
+        assertThat(lower[normal.length - 1]).isEqualTo(normal[normal.length - 1]);
+    }
+
+    @Test
+    public void getEntries_afterInvalidate_formatsAgain() {
+        final CharSequence[] first =
+                ClockDatePreviews.getEntries(mContext, ClockDatePreviews.STYLE_NORMAL);
+
+        ClockDatePreviews.invalidate();
+
+        assertThat(ClockDatePreviews.getEntries(mContext, ClockDatePreviews.STYLE_NORMAL))
+                .isNotSameInstanceAs(first);
+    }
+
+    @Test
+    public void getEntries_otherLocale_formatsAgain() {
+        final CharSequence[] first =
+                ClockDatePreviews.getEntries(mContext, ClockDatePreviews.STYLE_NORMAL);
+        final Configuration config = new Configuration(mContext.getResources().getConfiguration());
+        config.setLocale(Locale.FRANCE);
+        final Context french = mContext.createConfigurationContext(config);
+
+        assertThat(ClockDatePreviews.getEntries(french, ClockDatePreviews.STYLE_NORMAL))
+                .isNotSameInstanceAs(first);
+    }
+
+    @Test
+    public void getEntries_cached_allocatesFarLessThanFormatting() {
+        final long formatting = AllocationCounter.measure(() -> {
+            ClockDatePreviews.invalidate();
+            ClockDatePreviews.getEntries(mContext, ClockDatePreviews.STYLE_UPPERCASE);
+        }, 100, 100);
+        final long cached = AllocationCounter.measure(
+                () -> ClockDatePreviews.getEntries(mContext, ClockDatePreviews.STYLE_UPPERCASE),
+                100, 100);
+
+        assertThat(cached).isLessThan(formatting / 10);
+    }
+}
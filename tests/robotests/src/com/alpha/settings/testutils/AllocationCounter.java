@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.testutils;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counts the bytes the calling thread allocates while running a block, using the HotSpot
+ * per-thread allocation counter.
+ */
+public final class AllocationCounter {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private AllocationCounter() {
+    }
+
+    /**
+     * Runs {@code block} {@code warmups} times, then returns the bytes allocated by
+     * {@code iterations} more runs, minus what measuring an empty block costs.
+     */
+    public static long measure(Runnable block, int warmups, int iterations) {
+        for (int i = 0; i < warmups; i++) {
+            block.run();
+        }
+        final Runnable empty = () -> { };
+        final long overhead = allocatedBy(empty, iterations);
+        return Math.max(0, allocatedBy(block, iterations) - overhead);
+    }
+
+    private static long allocatedBy(Runnable block, int iterations) {
+        final long threadId = Thread.currentThread().getId();
+        final long before = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            block.run();
+        }
+        return THREADS.getThreadAllocatedBytes(threadId) - before;
+    }
+}
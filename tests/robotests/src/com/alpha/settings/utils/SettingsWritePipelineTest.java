@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.provider.Settings;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class SettingsWritePipelineTest {
+
+    private static final String KEY = "status_bar_clock_size";
+    private static final String OTHER_KEY = "status_bar_am_pm";
+
+    private ContentResolver mResolver;
+    private QueuedExecutor mExecutor;
+    private SettingsWritePipeline mPipeline;
+
+    @Before
+    public void setUp() {
+        final Context context = RuntimeEnvironment.application;
+        mResolver = context.getContentResolver();
+        mExecutor = new QueuedExecutor();
+        mPipeline = new SettingsWritePipeline(context, mExecutor);
+        Settings.System.putString(mResolver, KEY, "10");
+        Settings.System.putString(mResolver, OTHER_KEY, "0");
+    }
+
+    @Test
+    public void putStringNow_doesNotWriteOnCallingThread() {
+        mPipeline.putStringNow(KEY, "14");
+
+        assertThat(Settings.System.getString(mResolver, KEY)).isEqualTo("10");
+        assertThat(mExecutor.mTasks).hasSize(1);
+
+        mExecutor.runAll();
+
+        assertThat(Settings.System.getString(mResolver, KEY)).isEqualTo("14");
+    }
+
+    @Test
+    public void getString_pendingValue_servedWithoutProvider() {
+        mPipeline.putString(KEY, "12");
+
+        // The provider still holds the old value, so this can only come from the pipeline
+        assertThat(mPipeline.getString(KEY, null)).isEqualTo("12");
+    }
+
+    @Test
+    public void putString_withinWindow_writesLastValueOnce() {
+        mPipeline.putString(KEY, "11");
+        mPipeline.putString(KEY, "12");
+        mPipeline.putString(KEY, "13");
+
+        assertThat(mExecutor.mTasks).isEmpty();
+
+        ShadowLooper.idleMainLooper(200, TimeUnit.MILLISECONDS);
+
+        assertThat(mExecutor.mTasks).hasSize(1);
+        mExecutor.runAll();
+        assertThat(Settings.System.getString(mResolver, KEY)).isEqualTo("13");
+    }
+
+    @Test
+    public void putStringNow_supersededWrite_isSkipped() {
+        mPipeline.putStringNow(KEY, "11");
+        mPipeline.putStringNow(KEY, "12");
+
+        // Run the newer flush first, the older one must not overwrite its value
+        mExecutor.mTasks.remove(1).run();
+        mExecutor.runAll();
+
+        assertThat(Settings.System.getString(mResolver, KEY)).isEqualTo("12");
+    }
+
+    @Test
+    public void flush_writesEveryPendingKey() {
+        mPipeline.putString(KEY, "16");
+        mPipeline.putString(OTHER_KEY, "1");
+
+        mPipeline.flush();
+        mExecutor.runAll();
+
+        assertThat(Settings.System.getString(mResolver, KEY)).isEqualTo("16");
+        assertThat(Settings.System.getString(mResolver, OTHER_KEY)).isEqualTo("1");
+    }
+
+    @Test
+    public void getString_inFlightValue_servedUntilWritten() {
+        mPipeline.putStringNow(KEY, "15");
+
+        assertThat(mPipeline.getString(KEY, null)).isEqualTo("15");
+    }
+
+    /** Holds write tasks until the test runs them, in place of the background thread. */
+    private static final class QueuedExecutor implements Executor {
+        final ArrayList<Runnable> mTasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            mTasks.add(task);
+        }
+
+        void runAll() {
+            while (!mTasks.isEmpty()) {
+                mTasks.remove(0).run();
+            }
+        }
+    }
+}
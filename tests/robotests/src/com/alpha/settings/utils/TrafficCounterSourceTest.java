@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.alpha.settings.testutils.AllocationCounter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+@RunWith(RobolectricTestRunner.class)
+public class TrafficCounterSourceTest {
+
+    // Totals of the recordings without loopback, taken one second apart on a phone
+    private static final long RX_0 = 2029012478L;
+    private static final long TX_0 = 100023327L;
+    private static final long RX_1 = 2031109630L;
+    private static final long TX_1 = 100125727L;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File mFile;
+    private TrafficCounterSource mSource;
+    private final long[] mCounters = new long[2];
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = new File(mFolder.getRoot(), "dev");
+        mSource = TrafficCounterSource.procNetDev(mFile);
+    }
+
+    @Test
+    public void read_recording_sumsEveryInterfaceButLoopback() throws IOException {
+        record(mFile, 0);
+
+        assertThat(mSource.read(mCounters)).isTrue();
+        assertThat(mCounters[TrafficCounterSource.RX]).isEqualTo(RX_0);
+        assertThat(mCounters[TrafficCounterSource.TX]).isEqualTo(TX_0);
+    }
+
+    @Test
+    public void read_fileChangesBetweenReads_readsNewCounters() throws IOException {
+        record(mFile, 0);
+        mSource.read(mCounters);
+
+        // The file stays open, the next read has to start over from the top
+        record(mFile, 1);
+
+        assertThat(mSource.read(mCounters)).isTrue();
+        assertThat(mCounters[TrafficCounterSource.RX]).isEqualTo(RX_1);
+        assertThat(mCounters[TrafficCounterSource.TX]).isEqualTo(TX_1);
+    }
+
+    @Test
+    public void read_missingFile_returnsFalseUntilItExists() throws IOException {
+        assertThat(mSource.read(mCounters)).isFalse();
+
+        record(mFile, 0);
+
+        assertThat(mSource.read(mCounters)).isTrue();
+        assertThat(mCounters[TrafficCounterSource.RX]).isEqualTo(RX_0);
+    }
+
+    @Test
+    public void read_afterClose_reopensFile() throws IOException {
+        record(mFile, 0);
+        mSource.read(mCounters);
+        mSource.close();
+        record(mFile, 1);
+
+        assertThat(mSource.read(mCounters)).isTrue();
+        assertThat(mCounters[TrafficCounterSource.TX]).isEqualTo(TX_1);
+    }
+
+    @Test
+    public void read_steadyState_doesNotAllocate() throws IOException {
+        record(mFile, 0);
+
+        final long allocated = AllocationCounter.measure(() -> mSource.read(mCounters),
+                100, 100);
+
+        assertThat(allocated).isEqualTo(0);
+    }
+
+    @Test
+    public void firstReadable_firstSourceFailsLater_doesNotFallBack() {
+        final boolean[] primaryReadable = {true};
+        final int[] fallbackReads = new int[1];
+        final TrafficCounterSource source = TrafficCounterSource.firstReadable(
+                out -> primaryReadable[0],
+                out -> {
+                    fallbackReads[0]++;
+                    return true;
+                });
+        source.read(mCounters);
+
+        // Falling back now would mix two baselines into one rate
+        primaryReadable[0] = false;
+
+        assertThat(source.read(mCounters)).isFalse();
+        assertThat(fallbackReads[0]).isEqualTo(0);
+    }
+
+    @Test
+    public void firstReadable_firstSourceUnreadable_staysOnFallback() throws IOException {
+        final TrafficCounterSource source = TrafficCounterSource.firstReadable(mSource,
+                out -> {
+                    out[TrafficCounterSource.RX] = 1;
+                    out[TrafficCounterSource.TX] = 2;
+                    return true;
+                });
+        source.read(mCounters);
+
+        record(mFile, 0);
+
+        assertThat(source.read(mCounters)).isTrue();
+        assertThat(mCounters[TrafficCounterSource.RX]).isEqualTo(1);
+        assertThat(mCounters[TrafficCounterSource.TX]).isEqualTo(2);
+    }
+
+    /** Writes recording {@code index} into {@code target}, keeping the same file. */
+    static void record(File target, int index) throws IOException {
+        try (InputStream in = TrafficCounterSourceTest.class.getResourceAsStream(
+                "/traffic/proc_net_dev_" + index)) {
+            // Truncates in place, an open handle sees the new content like it would in /proc
+            Files.write(target.toPath(), in.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.alpha.settings.testutils.AllocationCounter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Locale;
+
+@RunWith(RobolectricTestRunner.class)
+public class TrafficRateFormatterTest {
+
+    private final TrafficRateFormatter mFormatter = new TrafficRateFormatter(Locale.US);
+
+    @Test
+    public void format_bytes() {
+        assertThat(format(0, TrafficRateFormatter.UNIT_BYTES)).isEqualTo("0 B/s");
+        assertThat(format(1023, TrafficRateFormatter.UNIT_BYTES)).isEqualTo("1023 B/s");
+        assertThat(format(1024, TrafficRateFormatter.UNIT_BYTES)).isEqualTo("1.0 kB/s");
+        assertThat(format(4403, TrafficRateFormatter.UNIT_BYTES)).isEqualTo("4.2 kB/s");
+        assertThat(format(10 * 1024, TrafficRateFormatter.UNIT_BYTES)).isEqualTo("10 kB/s");
+        assertThat(format(5L << 20, TrafficRateFormatter.UNIT_BYTES)).isEqualTo("5.0 MB/s");
+        assertThat(format(3L << 40, TrafficRateFormatter.UNIT_BYTES)).isEqualTo("3072 GB/s");
+    }
+
+    @Test
+    public void format_bits() {
+        assertThat(format(100, TrafficRateFormatter.UNIT_BITS)).isEqualTo("800 bps");
+        assertThat(format(125, TrafficRateFormatter.UNIT_BITS)).isEqualTo("1.0 kbps");
+        assertThat(format(1_250_000, TrafficRateFormatter.UNIT_BITS)).isEqualTo("10 Mbps");
+        assertThat(format(Long.MAX_VALUE, TrafficRateFormatter.UNIT_BITS))
+                .isEqualTo(Long.MAX_VALUE / 1_000_000_000L + " Gbps");
+    }
+
+    @Test
+    public void format_negativeRate_clampsToZero() {
+        assertThat(format(-1, TrafficRateFormatter.UNIT_BYTES)).isEqualTo("0 B/s");
+    }
+
+    @Test
+    public void format_usesLocaleSymbols() {
+        mFormatter.setLocale(Locale.GERMANY);
+        assertThat(format(4403, TrafficRateFormatter.UNIT_BYTES)).isEqualTo("4,2 kB/s");
+    }
+
+    @Test
+    public void format_doesNotAllocate() {
+        final long allocated = AllocationCounter.measure(() -> {
+            for (long rate = 1; rate > 0 && rate < Long.MAX_VALUE / 3; rate *= 3) {
+                mFormatter.format(rate, TrafficRateFormatter.UNIT_BYTES);
+                mFormatter.format(rate, TrafficRateFormatter.UNIT_BITS);
+            }
+        }, 1000, 1000);
+
+        assertThat(allocated).isEqualTo(0);
+    }
+
+    private String format(long bytesPerSec, int unitType) {
+        final int length = mFormatter.format(bytesPerSec, unitType);
+        assertThat(mFormatter.length()).isEqualTo(length);
+        return new String(mFormatter.getBuffer(), 0, length);
+    }
+}
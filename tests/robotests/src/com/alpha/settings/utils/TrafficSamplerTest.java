@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alpha.settings.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class TrafficSamplerTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private CountingSource mSource;
+    private long mRxRate = -1;
+    private long mTxRate = -1;
+
+    @Before
+    public void setUp() {
+        mSource = new CountingSource();
+    }
+
+    @Test
+    public void sample_recordingOneSecondApart_deliversRates() throws IOException {
+        final File file = new File(mFolder.getRoot(), "dev");
+        TrafficCounterSourceTest.record(file, 0);
+        final TrafficSampler sampler = newSampler(TrafficCounterSource.procNetDev(file));
+        sampler.start();
+        ShadowLooper.idleMainLooper();
+
+        TrafficCounterSourceTest.record(file, 1);
+        ShadowLooper.idleMainLooper(TrafficSampler.BASE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        assertThat(mRxRate).isEqualTo(2097152);
+        assertThat(mTxRate).isEqualTo(102400);
+        sampler.stop();
+    }
+
+    @Test
+    public void stop_closesSource() {
+        final TrafficSampler sampler = newSampler(mSource);
+        sampler.start();
+        ShadowLooper.idleMainLooper();
+
+        sampler.stop();
+        ShadowLooper.idleMainLooper(TrafficSampler.MAX_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        assertThat(mSource.mCloses).isEqualTo(1);
+        assertThat(mSource.mReads).isEqualTo(1);
+    }
+
+    private TrafficSampler newSampler(TrafficCounterSource source) {
+        // The main looper stands in for the sampler thread, so the test drives both
+        return new TrafficSampler(source, (rx, tx) -> {
+            mRxRate = rx;
+            mTxRate = tx;
+        }, Looper.getMainLooper());
+    }
+
+    /** Reports steadily growing counters and counts the calls. */
+    private static final class CountingSource implements TrafficCounterSource {
+        int mReads;
+        int mCloses;
+
+        @Override
+        public boolean read(long[] out) {
+            mReads++;
+            out[RX] = mReads * 1024L;
+            out[TX] = mReads * 512L;
+            return true;
+        }
+
+        @Override
+        public void close() {
+            mCloses++;
+        }
+    }
+}
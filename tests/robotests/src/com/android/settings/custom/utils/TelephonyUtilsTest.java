@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2023 AlphaDroid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.custom.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.alpha.settings.testutils.AllocationCounter;
+
+import com.android.internal.telephony.RILConstants;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class TelephonyUtilsTest {
+
+    // Past the highest RIL network mode, so unknown modes are covered too
+    private static final int MAX_MODE = 64;
+
+    private static final int[] PHONE_TYPES = {
+        RILConstants.NO_PHONE, RILConstants.GSM_PHONE, RILConstants.CDMA_PHONE,
+    };
+
+    @Test
+    public void getNetworkModeLabel_matchesSwitchForEveryModeAndFlag() {
+        for (int mode = -1; mode <= MAX_MODE; mode++) {
+            for (int phoneType : PHONE_TYPES) {
+                for (int flags = 0; flags < 16; flags++) {
+                    final boolean show4G = (flags & 1) != 0;
+                    final boolean tdscdma = (flags & 2) != 0;
+                    final boolean globalCdma = (flags & 4) != 0;
+                    final boolean worldMode = (flags & 8) != 0;
+
+                    final int label = TelephonyUtils.getNetworkModeLabel(mode, phoneType,
+                            show4G, tdscdma, globalCdma, worldMode);
+                    final String actual =
+                            label < 0 ? null : TelephonyUtils.NETWORK_LABEL_NAMES[label];
+
+                    assertWithMessage("mode %s, phone type %s, flags %s", mode, phoneType, flags)
+                            .that(actual)
+                            .isEqualTo(switchLabel(mode, phoneType, show4G, tdscdma,
+                                    globalCdma, worldMode));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void getNetworkModeLabel_allModes_doesNotAllocate() {
+        final long allocated = AllocationCounter.measure(() -> {
+            for (int mode = 0; mode < MAX_MODE; mode++) {
+                TelephonyUtils.getNetworkModeLabel(mode, RILConstants.GSM_PHONE,
+                        true, false, false, false);
+            }
+        }, 1000, 1000);
+
+        assertThat(allocated).isEqualTo(0);
+    }
+
+    /** The switch the MODE_CLASSES table replaced, as the reference. */
+    private static String switchLabel(int networkMode, int phoneType, boolean show4GForLTE,
+            boolean isSupportTdsCdma, boolean isGlobalCdma, boolean isWorldMode) {
+        switch (networkMode) {
+            case RILConstants.NETWORK_MODE_TDSCDMA_WCDMA:
+            case RILConstants.NETWORK_MODE_TDSCDMA_GSM_WCDMA:
+            case RILConstants.NETWORK_MODE_TDSCDMA_GSM:
+            case RILConstants.NETWORK_MODE_WCDMA_ONLY:
+            case RILConstants.NETWORK_MODE_GSM_UMTS:
+            case RILConstants.NETWORK_MODE_WCDMA_PREF:
+            case RILConstants.NETWORK_MODE_TDSCDMA_CDMA_EVDO_GSM_WCDMA:
+            case RILConstants.NETWORK_MODE_CDMA:
+            case RILConstants.NETWORK_MODE_EVDO_NO_CDMA:
+            case RILConstants.NETWORK_MODE_GLOBAL:
+                return "network_3G";
+            case RILConstants.NETWORK_MODE_GSM_ONLY:
+                return "network_2G";
+            case RILConstants.NETWORK_MODE_LTE_GSM_WCDMA:
+            case RILConstants.NETWORK_MODE_LTE_WCDMA:
+            case RILConstants.NETWORK_MODE_LTE_ONLY:
+            case RILConstants.NETWORK_MODE_LTE_CDMA_EVDO:
+                return show4GForLTE ? "network_4G" : "network_lte";
+            case RILConstants.NETWORK_MODE_CDMA_NO_EVDO:
+                return "network_1x";
+            case RILConstants.NETWORK_MODE_TDSCDMA_ONLY:
+                return "network_tdscdma";
+            case RILConstants.NETWORK_MODE_LTE_TDSCDMA_GSM:
+            case RILConstants.NETWORK_MODE_LTE_TDSCDMA_GSM_WCDMA:
+            case RILConstants.NETWORK_MODE_LTE_TDSCDMA:
+            case RILConstants.NETWORK_MODE_LTE_TDSCDMA_WCDMA:
+            case RILConstants.NETWORK_MODE_LTE_TDSCDMA_CDMA_EVDO_GSM_WCDMA:
+            case RILConstants.NETWORK_MODE_LTE_CDMA_EVDO_GSM_WCDMA:
+                if (isSupportTdsCdma) {
+                    return "network_lte";
+                }
+                if (phoneType == RILConstants.CDMA_PHONE || isGlobalCdma || isWorldMode) {
+                    return "network_global";
+                }
+                return show4GForLTE ? "network_4G" : "network_lte";
+            default:
+                return null;
+        }
+    }
+}